@@ -0,0 +1,105 @@
+package Assessment3_DennisMusyimi;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped lock table guarding every BankAccount balance.
+ * Each account number hashes to one stripe. Operations touching two
+ * accounts always take their stripes in ascending stripe order, so two
+ * opposite transfers (A -> B and B -> A) can never deadlock.
+ */
+final class AccountLocks {
+    private static final int STRIPES = computeStripeCount();
+    private static final int MASK = STRIPES - 1;
+    private static final ReentrantLock[] LOCKS = new ReentrantLock[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            LOCKS[i] = new ReentrantLock();
+        }
+    }
+
+    private AccountLocks() {
+    }
+
+    // Enough stripes that two random accounts rarely share one, rounded to a power of two
+    private static int computeStripeCount() {
+        int target = Math.max(256, Runtime.getRuntime().availableProcessors() * 64);
+        return Integer.highestOneBit(target - 1) << 1;
+    }
+
+    static int stripeCount() {
+        return STRIPES;
+    }
+
+    /**
+     * Map an account number to its stripe index
+     */
+    static int stripeOf(String accountNumber) {
+        int h = accountNumber.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h & MASK;
+    }
+
+    static void lock(int stripe) {
+        LOCKS[stripe].lock();
+    }
+
+    static void unlock(int stripe) {
+        LOCKS[stripe].unlock();
+    }
+
+    /**
+     * Lock two stripes in ascending order (once if both accounts share a stripe)
+     */
+    static void lockBoth(int first, int second) {
+        if (first == second) {
+            LOCKS[first].lock();
+        } else if (first < second) {
+            LOCKS[first].lock();
+            LOCKS[second].lock();
+        } else {
+            LOCKS[second].lock();
+            LOCKS[first].lock();
+        }
+    }
+
+    static void unlockBoth(int first, int second) {
+        LOCKS[first].unlock();
+        if (first != second) {
+            LOCKS[second].unlock();
+        }
+    }
+
+    /**
+     * Lock a set of distinct stripes; they must be sorted ascending
+     */
+    static void lockAll(int[] sortedStripes, int count) {
+        for (int i = 0; i < count; i++) {
+            LOCKS[sortedStripes[i]].lock();
+        }
+    }
+
+    static void unlockAll(int[] sortedStripes, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            LOCKS[sortedStripes[i]].unlock();
+        }
+    }
+
+    /**
+     * Lock every stripe - a short global barrier (used to cut a snapshot epoch)
+     */
+    static void lockEveryStripe() {
+        for (int i = 0; i < STRIPES; i++) {
+            LOCKS[i].lock();
+        }
+    }
+
+    static void unlockEveryStripe() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            LOCKS[i].unlock();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package Assessment3_DennisMusyimi;
+
+// Custom Checked Exception for Account Not Found
+class AccountNotFoundException extends Exception {
+    private String accountNumber;
+    private String operation;
+
+    public AccountNotFoundException(String message) {
+        super(message);
+    }
+
+    public AccountNotFoundException(String message, String accountNumber) {
+        super(message);
+        this.accountNumber = accountNumber;
+    }
+
+    public AccountNotFoundException(String message, String accountNumber, String operation) {
+        super(message);
+        this.accountNumber = accountNumber;
+        this.operation = operation;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(super.toString());
+        if (accountNumber != null) {
+            sb.append(" [Account: ").append(accountNumber);
+            if (operation != null) {
+                sb.append(", Operation: ").append(operation);
+            }
+            sb.append("]");
+        }
+        return sb.toString();
+    }
+}
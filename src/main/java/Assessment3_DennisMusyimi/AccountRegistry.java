@@ -0,0 +1,147 @@
+package Assessment3_DennisMusyimi;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Concurrent registry of BankAccounts keyed by account number.
+ * Accounts live directly in an open-addressing table (linear probing), so
+ * each entry costs one reference slot - no node, boxed key or bucket object.
+ * Lookups are lock-free; registrations are serialized and publish a new
+ * table when the load factor is exceeded.
+ */
+class AccountRegistry {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final double MAX_LOAD = 0.6;
+    private static final int MAX_CAPACITY = 1 << 30; // largest power-of-two table an array can hold
+
+    private volatile AtomicReferenceArray<BankAccount> table;
+    private volatile int size;
+
+    public AccountRegistry() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public AccountRegistry(int expectedAccounts) {
+        this.table = new AtomicReferenceArray<>(capacityFor(expectedAccounts));
+    }
+
+    /**
+     * Register a new account; account numbers must be unique
+     */
+    public synchronized void register(BankAccount account) throws InvalidTransactionException {
+        if (account == null) {
+            throw new InvalidTransactionException("Account cannot be null", "REGISTRATION");
+        }
+        if (find(account.getAccountNumber()) != null) {
+            throw new InvalidTransactionException(
+                "Account number already registered: " + account.getAccountNumber(),
+                "REGISTRATION"
+            );
+        }
+        if (size + 1 > table.length() * MAX_LOAD) {
+            resize();
+        }
+        insert(table, account);
+        size++;
+        BankAccount.registered(account);
+    }
+
+    /**
+     * Find an account by number, or null when it is not registered
+     */
+    public BankAccount find(String accountNumber) {
+        if (accountNumber == null) {
+            return null;
+        }
+        AtomicReferenceArray<BankAccount> current = table;
+        int mask = current.length() - 1;
+        for (int slot = spread(accountNumber.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            BankAccount account = current.get(slot);
+            if (account == null) {
+                return null;
+            }
+            if (account.getAccountNumber().equals(accountNumber)) {
+                return account;
+            }
+        }
+    }
+
+    /**
+     * Resolve an account by number for the given operation
+     */
+    public BankAccount lookup(String accountNumber, String operation) throws AccountNotFoundException {
+        BankAccount account = find(accountNumber);
+        if (account == null) {
+            throw new AccountNotFoundException("Account not found", accountNumber, operation);
+        }
+        return account;
+    }
+
+    /**
+     * Transfer between two accounts identified by number
+     */
+    public void transfer(String fromNumber, String toNumber, double amount)
+            throws InsufficientFundsException, InvalidTransactionException, AccountNotFoundException {
+        BankAccount from = lookup(fromNumber, "TRANSFER");
+        BankAccount to = lookup(toNumber, "TRANSFER");
+        from.transfer(to, amount);
+    }
+
+    /**
+     * Visit every registered account (weakly consistent with concurrent registrations)
+     */
+    public void forEach(Consumer<BankAccount> action) {
+        AtomicReferenceArray<BankAccount> current = table;
+        for (int slot = 0; slot < current.length(); slot++) {
+            BankAccount account = current.get(slot);
+            if (account != null) {
+                action.accept(account);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize() {
+        AtomicReferenceArray<BankAccount> old = table;
+        if (old.length() >= MAX_CAPACITY) {
+            throw new InvalidTransactionException(
+                "Account registry is full (" + size + " accounts)",
+                "REGISTRATION"
+            );
+        }
+        AtomicReferenceArray<BankAccount> bigger = new AtomicReferenceArray<>(old.length() * 2);
+        for (int slot = 0; slot < old.length(); slot++) {
+            BankAccount account = old.get(slot);
+            if (account != null) {
+                insert(bigger, account);
+            }
+        }
+        table = bigger; // readers still probing the old table see a complete, unchanged copy
+    }
+
+    private static void insert(AtomicReferenceArray<BankAccount> target, BankAccount account) {
+        int mask = target.length() - 1;
+        int slot = spread(account.getAccountNumber().hashCode()) & mask;
+        while (target.get(slot) != null) {
+            slot = (slot + 1) & mask;
+        }
+        target.set(slot, account);
+    }
+
+    private static int capacityFor(int expectedAccounts) {
+        int needed = (int) Math.min(MAX_CAPACITY, (long) Math.ceil(Math.max(expectedAccounts, 1) / MAX_LOAD));
+        return Math.max(16, Integer.highestOneBit(needed - 1) << 1);
+    }
+
+    // String hashes cluster in the low bits for sequential account numbers
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x7FEB352D;
+        h ^= h >>> 15;
+        return h;
+    }
+}
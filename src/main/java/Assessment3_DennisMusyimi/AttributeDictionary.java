@@ -0,0 +1,58 @@
+package Assessment3_DennisMusyimi;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only dictionary for a product attribute with few distinct values
+ * (category, material, color). Products store a small code instead of their
+ * own String, so a catalogue of millions keeps each distinct value once.
+ * Codes are dense from 0 and never reused; decoding is an array read.
+ */
+final class AttributeDictionary {
+    private final String attribute;
+    private final int capacity;
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[16]; // re-published after every append
+    private int size;                                  // guarded by this
+
+    /**
+     * @param attribute field name reported when the dictionary is full
+     * @param capacity most distinct values, sized to the code field that holds them
+     */
+    AttributeDictionary(String attribute, int capacity) {
+        this.attribute = attribute;
+        this.capacity = capacity;
+    }
+
+    int encode(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : append(value);
+    }
+
+    String decode(int code) {
+        return values[code];
+    }
+
+    int size() {
+        return codes.size();
+    }
+
+    private synchronized int append(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (size == capacity) {
+            throw new InvalidProductDataException("Too many distinct " + attribute + " values", attribute, value);
+        }
+        String[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, Math.min(capacity, current.length * 2));
+        }
+        current[size] = value;
+        values = current; // volatile write publishes the new slot before the code is handed out
+        codes.put(value, size);
+        return size++;
+    }
+}
@@ -0,0 +1,20 @@
+package Assessment3_DennisMusyimi;
+
+/**
+ * Receives one event per successful BankAccount deposit, withdrawal or transfer.
+ * Implementations must be thread-safe; record() runs on the posting thread
+ * after the account locks have been released.
+ */
+interface AuditSink {
+    enum Kind { DEPOSIT, WITHDRAWAL, TRANSFER }
+
+    /** Drops every event */
+    AuditSink DISCARD = (kind, account, target, amountCents, balanceCents, targetBalanceCents) -> { };
+
+    /**
+     * @param target             destination account for transfers, otherwise null
+     * @param balanceCents       account balance after the posting
+     * @param targetBalanceCents destination balance after a transfer, otherwise 0
+     */
+    void record(Kind kind, String account, String target, long amountCents, long balanceCents, long targetBalanceCents);
+}
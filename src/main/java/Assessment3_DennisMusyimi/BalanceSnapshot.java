@@ -0,0 +1,234 @@
+package Assessment3_DennisMusyimi;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-in-time snapshot of every registered account balance.
+ *
+ * Taking a snapshot holds all stripes only long enough to start a new epoch
+ * and read the journal tail; transfers then carry on while the file is
+ * written. The first change to an account after the cut keeps its old
+ * balance in a copy-on-write slot, so the snapshot sees every account as of
+ * the cut. Restart = load the snapshot, then replay the journal from the cut.
+ * Accounts opened after the cut are not in the snapshot; the replay recreates
+ * them from their journaled openings. Accounts journaled before the cut but
+ * not yet registered are saved along with the registry's.
+ *
+ * File layout (big-endian, columnar):
+ *   int magic, int version, int epoch, long journal sequence at the cut, int account count
+ *   long[count] balances in cents
+ *   count x (short length, UTF-8 bytes) account numbers
+ *   count x (short length, UTF-8 bytes) account holders
+ */
+final class BalanceSnapshot {
+    private static final int MAGIC = 0x424E4B53; // "BNKS"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_STRING_BYTES = 0xFFFF; // lengths are written as an unsigned short
+
+    private final Path file;
+    private final int epoch;
+    private final long journalSequence;
+    private final int accountCount;
+
+    private BalanceSnapshot(Path file, int epoch, long journalSequence, int accountCount) {
+        this.file = file;
+        this.epoch = epoch;
+        this.journalSequence = journalSequence;
+        this.accountCount = accountCount;
+    }
+
+    /**
+     * Write a snapshot of every registered account without pausing postings
+     */
+    static synchronized BalanceSnapshot write(AccountRegistry registry, Path file) throws IOException {
+        // The cut: a brief barrier so no posting straddles the epoch change
+        int epoch;
+        long journalSequence;
+        List<BankAccount> unregistered;
+        AccountLocks.lockEveryStripe();
+        try {
+            epoch = BankAccount.advanceSnapshotEpoch();
+            TransactionJournal journal = BankAccount.getJournal();
+            journalSequence = journal != null ? journal.lastSequence() : 0;
+            // Opened before the cut but possibly registered only after the scan below
+            unregistered = BankAccount.unregisteredOpenings();
+        } finally {
+            AccountLocks.unlockEveryStripe();
+        }
+
+        // Gather balances as of the cut while postings continue
+        Set<BankAccount> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+        pending.addAll(unregistered);
+        List<BankAccount> registered = new ArrayList<>(registry.size() + unregistered.size());
+        registry.forEach(account -> {
+            registered.add(account);
+            pending.remove(account);
+        });
+        for (BankAccount account : pending) {
+            // Skip an opening whose account number went to a different registered account
+            BankAccount holder = registry.find(account.getAccountNumber());
+            if (holder == null || holder == account) {
+                registered.add(account);
+            }
+        }
+        BankAccount[] accounts = new BankAccount[registered.size()];
+        long[] balances = new long[registered.size()];
+        int accountCount = 0;
+        for (BankAccount account : registered) {
+            long balance = account.balanceAtEpoch(epoch);
+            if (balance >= 0) { // negative = opened after the cut
+                accounts[accountCount] = account;
+                balances[accountCount] = balance;
+                accountCount++;
+            }
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(epoch).putLong(journalSequence).putInt(accountCount);
+            for (int i = 0; i < accountCount; i++) {
+                ensureRoom(channel, buffer, Long.BYTES);
+                buffer.putLong(balances[i]);
+            }
+            for (int i = 0; i < accountCount; i++) {
+                putString(channel, buffer, accounts[i].getAccountNumber());
+            }
+            for (int i = 0; i < accountCount; i++) {
+                putString(channel, buffer, accounts[i].getAccountHolder());
+            }
+            drain(channel, buffer);
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new BalanceSnapshot(file, epoch, journalSequence, accountCount);
+    }
+
+    /**
+     * Recreate and register every account stored in a snapshot file
+     */
+    static BalanceSnapshot restore(Path file, AccountRegistry registry) throws IOException {
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream, BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a balance snapshot: " + file);
+            }
+            int epoch = in.readInt();
+            long journalSequence = in.readLong();
+            int accountCount = in.readInt();
+
+            long[] balances = new long[accountCount];
+            for (int i = 0; i < accountCount; i++) {
+                balances[i] = in.readLong();
+            }
+            String[] numbers = new String[accountCount];
+            for (int i = 0; i < accountCount; i++) {
+                numbers[i] = readString(in);
+            }
+            for (int i = 0; i < accountCount; i++) {
+                registry.register(BankAccount.restore(numbers[i], readString(in), balances[i]));
+            }
+            return new BalanceSnapshot(file, epoch, journalSequence, accountCount);
+        }
+    }
+
+    /**
+     * Restart path: restore the snapshot, then replay the journal tail written after the cut
+     * @return number of journal records replayed
+     */
+    static long recover(Path file, TransactionJournal journal, AccountRegistry registry) throws IOException {
+        BalanceSnapshot snapshot = restore(file, registry);
+        return journal.replay(registry, snapshot.getJournalSequence() + 1);
+    }
+
+    /**
+     * Take a snapshot into the directory at a fixed interval. After each one the
+     * older snapshots and the journal segments it covers are deleted, keeping
+     * the replay tail short.
+     */
+    static ScheduledFuture<?> schedulePeriodic(ScheduledExecutorService scheduler, AccountRegistry registry,
+                                               Path directory, Duration interval) {
+        long millis = interval.toMillis();
+        return scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                Path file = directory.resolve("snapshot-" + System.currentTimeMillis() + ".bin");
+                BalanceSnapshot snapshot = write(registry, file);
+                deleteOlderSnapshots(directory, snapshot.getFile());
+                TransactionJournal journal = BankAccount.getJournal();
+                if (journal != null) {
+                    journal.deleteBefore(snapshot.getJournalSequence() + 1);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Report and keep the schedule: an escaping exception would cancel every later snapshot
+                System.err.println("❌ Snapshot failed: " + e.getMessage());
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void deleteOlderSnapshots(Path directory, Path keep) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "snapshot-*.bin")) {
+            for (Path file : files) {
+                if (!file.equals(keep)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static void putString(FileChannel channel, ByteBuffer buffer, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IOException("Text too long for a balance snapshot (max " + MAX_STRING_BYTES + " bytes): "
+                                  + value.substring(0, 32) + "...");
+        }
+        ensureRoom(channel, buffer, Short.BYTES + bytes.length);
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void ensureRoom(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain(channel, buffer);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public Path getFile() { return file; }
+    public int getEpoch() { return epoch; }
+    public long getJournalSequence() { return journalSequence; }
+    public int getAccountCount() { return accountCount; }
+}
@@ -0,0 +1,688 @@
+package Assessment3_DennisMusyimi;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// BankAccount Class with Robust Exception Handling
+class BankAccount {
+    private String accountNumber;
+    private String accountHolder;
+    private volatile long balanceCents; // written only while holding the account's stripe lock
+    private final int lockStripe;
+
+    // Copy-on-write slot for snapshots: the balance as of the start of savedEpoch
+    private final int createdEpoch;
+    private int savedEpoch;
+    private long savedBalanceCents;
+
+    // Rolling limits; the windows are created with the limits and only touched under the stripe
+    private volatile VelocityLimits limits = VelocityLimits.NONE;
+    private SlidingWindowCounter dailyWithdrawals;
+    private SlidingWindowCounter minuteTransfers;
+
+    // Write-ahead journal shared by all accounts (null = balances are not persisted)
+    private static volatile TransactionJournal journal;
+    // Bumped by BalanceSnapshot while every stripe is held
+    private static volatile int snapshotEpoch;
+    // Journaled openings not yet in an AccountRegistry; a snapshot cut must still cover them
+    private static final Set<BankAccount> unregisteredOpenings = ConcurrentHashMap.newKeySet();
+    // Where deposit/withdraw/transfer report successful postings
+    private static volatile AuditSink auditSink = ConsoleAuditSink.INSTANCE;
+
+    // Constants for validation
+    private static final double MIN_DEPOSIT = 0.01;
+    private static final double MIN_WITHDRAWAL = 0.01;
+    private static final double MAX_TRANSACTION = 50000.0;
+    // Keeps opening balances well inside the range Money.toCents converts exactly
+    private static final double MAX_INITIAL_BALANCE = 1_000_000_000_000.0;
+
+    // Negative results of debitHeld/transferHeld
+    static final long REJECTED_FUNDS = -1;
+    static final long REJECTED_LIMIT = -2;
+
+    /**
+     * Constructor for BankAccount
+     */
+    public BankAccount(String accountNumber, String accountHolder, double initialBalance) {
+        validateAccountNumber(accountNumber);
+        validateAccountHolder(accountHolder);
+        validateInitialBalance(initialBalance);
+
+        this.accountNumber = accountNumber.trim();
+        this.accountHolder = accountHolder.trim();
+        this.balanceCents = Money.toCents(initialBalance);
+        this.lockStripe = AccountLocks.stripeOf(this.accountNumber);
+
+        long sequence = 0;
+        TransactionJournal log = journal;
+        if (log == null) {
+            this.createdEpoch = snapshotEpoch;
+        } else {
+            // Journal the opening in the epoch the account is created in, so a snapshot
+            // cut puts it either in the snapshot or in the journal tail after it, never both
+            AccountLocks.lock(lockStripe);
+            try {
+                this.createdEpoch = snapshotEpoch;
+                sequence = log.appendOpening(this.accountNumber, this.accountHolder, balanceCents);
+                unregisteredOpenings.add(this);
+            } finally {
+                AccountLocks.unlock(lockStripe);
+            }
+        }
+        this.savedEpoch = createdEpoch;
+        awaitDurable(sequence);
+    }
+
+    // An account recreated from a snapshot or the journal; its opening is not journaled again
+    private BankAccount(String accountNumber, String accountHolder, long balanceCents, int createdEpoch) {
+        validateAccountNumber(accountNumber);
+        validateAccountHolder(accountHolder);
+
+        this.accountNumber = accountNumber.trim();
+        this.accountHolder = accountHolder.trim();
+        this.balanceCents = balanceCents;
+        this.lockStripe = AccountLocks.stripeOf(this.accountNumber);
+        this.createdEpoch = createdEpoch;
+        this.savedEpoch = createdEpoch;
+    }
+
+    /**
+     * Recreate an account during recovery, with its balance in cents
+     */
+    static BankAccount restore(String accountNumber, String accountHolder, long balanceCents) {
+        return new BankAccount(accountNumber, accountHolder, balanceCents, snapshotEpoch);
+    }
+
+    /**
+     * Deposit money into the account
+     */
+    public void deposit(double amount) throws InvalidTransactionException {
+        validateDepositAmount(amount);
+
+        credit(Money.toCents(amount));
+    }
+
+    /**
+     * Withdraw money from the account
+     */
+    public void withdraw(double amount) throws InsufficientFundsException, InvalidTransactionException {
+        validateWithdrawalAmount(amount);
+
+        debit(Money.toCents(amount));
+    }
+
+    /**
+     * Transfer money to another account
+     */
+    public void transfer(BankAccount toAccount, double amount) 
+            throws InsufficientFundsException, InvalidTransactionException, AccountNotFoundException {
+
+        validateTransferAccount(toAccount);
+        validateTransferAmount(amount);
+
+        long amountCents = Money.toCents(amount);
+
+        // Check if transferring to same account
+        if (this.accountNumber.equals(toAccount.getAccountNumber())) {
+            throw new InvalidTransactionException(
+                "Cannot transfer to the same account", 
+                "TRANSFER", 
+                Money.toDouble(amountCents), 
+                "Source and destination are identical"
+            );
+        }
+
+        // Check funds and move them atomically under both accounts' locks
+        moveFunds(toAccount, amountCents);
+    }
+
+    // Exception-free postings: routine failures come back as a TxnStatus and are not printed;
+    // successful ones reach the audit sink like any other posting
+
+    /**
+     * Deposit without throwing
+     */
+    public TxnStatus tryDeposit(double amount) {
+        if (!isValidAmount(amount)) {
+            return TxnStatus.INVALID_AMOUNT;
+        }
+        credit(Money.toCents(amount));
+        return TxnStatus.OK;
+    }
+
+    /**
+     * Withdraw without throwing
+     */
+    public TxnStatus tryWithdraw(double amount) {
+        if (!isValidAmount(amount)) {
+            return TxnStatus.INVALID_AMOUNT;
+        }
+        long amountCents = Money.toCents(amount);
+        long sequence;
+        long newBalance;
+        AccountLocks.lock(lockStripe);
+        try {
+            sequence = debitHeld(amountCents);
+            newBalance = balanceCents;
+        } finally {
+            AccountLocks.unlock(lockStripe);
+        }
+        if (sequence < 0) {
+            return rejection(sequence);
+        }
+        awaitDurable(sequence);
+        auditSink.record(AuditSink.Kind.WITHDRAWAL, accountNumber, null, amountCents, newBalance, 0);
+        return TxnStatus.OK;
+    }
+
+    /**
+     * Transfer without throwing
+     */
+    public TxnStatus tryTransfer(BankAccount toAccount, double amount) {
+        if (toAccount == null) {
+            return TxnStatus.ACCOUNT_NOT_FOUND;
+        }
+        if (!isValidAmount(amount)) {
+            return TxnStatus.INVALID_AMOUNT;
+        }
+        if (this.accountNumber.equals(toAccount.accountNumber)) {
+            return TxnStatus.SAME_ACCOUNT;
+        }
+        long amountCents = Money.toCents(amount);
+        long sequence;
+        long newBalance;
+        long newTargetBalance;
+        AccountLocks.lockBoth(this.lockStripe, toAccount.lockStripe);
+        try {
+            sequence = transferHeld(toAccount, amountCents);
+            newBalance = balanceCents;
+            newTargetBalance = toAccount.balanceCents;
+        } finally {
+            AccountLocks.unlockBoth(this.lockStripe, toAccount.lockStripe);
+        }
+        if (sequence < 0) {
+            return rejection(sequence);
+        }
+        awaitDurable(sequence);
+        auditSink.record(AuditSink.Kind.TRANSFER, accountNumber, toAccount.accountNumber,
+                         amountCents, newBalance, newTargetBalance);
+        return TxnStatus.OK;
+    }
+
+    // Locked balance mutations (amounts are already validated and converted to cents).
+    // Each reports the posting to the audit sink with the balances it produced.
+
+    /**
+     * Add an amount under this account's lock and return the new balance in cents
+     */
+    long credit(long amountCents) {
+        long sequence;
+        long newBalance;
+        AccountLocks.lock(lockStripe);
+        try {
+            sequence = creditHeld(amountCents);
+            newBalance = balanceCents;
+        } finally {
+            AccountLocks.unlock(lockStripe);
+        }
+        awaitDurable(sequence);
+        auditSink.record(AuditSink.Kind.DEPOSIT, accountNumber, null, amountCents, newBalance, 0);
+        return newBalance;
+    }
+
+    /**
+     * Remove an amount under this account's lock and return the new balance in cents
+     */
+    long debit(long amountCents) throws InsufficientFundsException {
+        long sequence;
+        long newBalance;
+        AccountLocks.lock(lockStripe);
+        try {
+            sequence = debitHeld(amountCents);
+            if (sequence == REJECTED_FUNDS) {
+                throw InsufficientFundsException.forOperation("withdraw", balanceCents, amountCents, accountNumber);
+            }
+            if (sequence == REJECTED_LIMIT) {
+                throw new InvalidTransactionException(
+                    String.format("Daily withdrawal limit of $%.2f exceeded", limits.getDailyWithdrawalLimit()),
+                    "WITHDRAWAL",
+                    Money.toDouble(amountCents),
+                    "Velocity limit"
+                );
+            }
+            newBalance = balanceCents;
+        } finally {
+            AccountLocks.unlock(lockStripe);
+        }
+        awaitDurable(sequence);
+        auditSink.record(AuditSink.Kind.WITHDRAWAL, accountNumber, null, amountCents, newBalance, 0);
+        return newBalance;
+    }
+
+    /**
+     * Move an amount to another account. Both stripes are taken in
+     * ascending order so concurrent opposite transfers cannot deadlock.
+     */
+    void moveFunds(BankAccount toAccount, long amountCents) throws InsufficientFundsException {
+        long sequence;
+        long newBalance;
+        long newTargetBalance;
+        AccountLocks.lockBoth(this.lockStripe, toAccount.lockStripe);
+        try {
+            sequence = transferHeld(toAccount, amountCents);
+            if (sequence == REJECTED_FUNDS) {
+                throw InsufficientFundsException.forOperation("transfer", balanceCents, amountCents, accountNumber);
+            }
+            if (sequence == REJECTED_LIMIT) {
+                throw new InvalidTransactionException(
+                    String.format("Limit of %d transfers per minute exceeded", limits.getTransfersPerMinute()),
+                    "TRANSFER",
+                    Money.toDouble(amountCents),
+                    "Velocity limit"
+                );
+            }
+            newBalance = balanceCents;
+            newTargetBalance = toAccount.balanceCents;
+        } finally {
+            AccountLocks.unlockBoth(this.lockStripe, toAccount.lockStripe);
+        }
+        awaitDurable(sequence);
+        auditSink.record(AuditSink.Kind.TRANSFER, accountNumber, toAccount.accountNumber,
+                         amountCents, newBalance, newTargetBalance);
+    }
+
+    /**
+     * Status for a negative debitHeld/transferHeld result
+     */
+    static TxnStatus rejection(long result) {
+        return result == REJECTED_LIMIT ? TxnStatus.LIMIT_EXCEEDED : TxnStatus.INSUFFICIENT_FUNDS;
+    }
+
+    // Wait for the journal (if any) outside the stripe locks
+    private static void awaitDurable(long sequence) {
+        TransactionJournal log = journal;
+        if (log != null && sequence > 0) {
+            log.awaitDurable(sequence);
+        }
+    }
+
+    // Mutations for callers that already hold this account's stripe.
+    // They return the journal sequence of the posting (0 when not journaled) and the
+    // caller awaits durability once, after releasing its stripes.
+
+    long creditHeld(long amountCents) {
+        TransactionJournal log = journal;
+        long sequence = log != null ? log.append(TransactionJournal.DEPOSIT, accountNumber, null, amountCents) : 0;
+        adjustBalance(amountCents);
+        return sequence;
+    }
+
+    /**
+     * @return the journal sequence (0 when not journaled), REJECTED_FUNDS or REJECTED_LIMIT
+     */
+    long debitHeld(long amountCents) {
+        if (amountCents > balanceCents) {
+            return REJECTED_FUNDS;
+        }
+        VelocityLimits current = limits;
+        if (current.isLimitingWithdrawals()) {
+            long now = System.currentTimeMillis();
+            if (dailyWithdrawals.sum(now) + amountCents > current.getDailyWithdrawalCents()) {
+                return REJECTED_LIMIT;
+            }
+            dailyWithdrawals.add(now, amountCents);
+        }
+        TransactionJournal log = journal;
+        long sequence = log != null ? log.append(TransactionJournal.WITHDRAWAL, accountNumber, null, amountCents) : 0;
+        adjustBalance(-amountCents);
+        return sequence;
+    }
+
+    /**
+     * @return the journal sequence (0 when not journaled), REJECTED_FUNDS or REJECTED_LIMIT
+     */
+    long transferHeld(BankAccount toAccount, long amountCents) {
+        if (amountCents > balanceCents) {
+            return REJECTED_FUNDS;
+        }
+        VelocityLimits current = limits;
+        if (current.isLimitingTransfers()) {
+            long now = System.currentTimeMillis();
+            if (minuteTransfers.sum(now) >= current.getTransfersPerMinute()) {
+                return REJECTED_LIMIT;
+            }
+            minuteTransfers.add(now, 1);
+        }
+        TransactionJournal log = journal;
+        long sequence = log != null
+            ? log.append(TransactionJournal.TRANSFER, accountNumber, toAccount.accountNumber, amountCents) : 0;
+        this.adjustBalance(-amountCents);
+        toAccount.adjustBalance(amountCents);
+        return sequence;
+    }
+
+    // Every balance change goes through here, with the account's stripe held
+    private void adjustBalance(long deltaCents) {
+        int epoch = snapshotEpoch;
+        if (savedEpoch != epoch) {
+            // First change since a snapshot cut: keep the balance the snapshot must see
+            savedBalanceCents = balanceCents;
+            savedEpoch = epoch;
+        }
+        balanceCents += deltaCents;
+    }
+
+    /**
+     * Balance as of the start of the given snapshot epoch, or -1 when the account
+     * did not exist yet. Reads under the account's stripe.
+     */
+    long balanceAtEpoch(int epoch) {
+        if (createdEpoch >= epoch) {
+            return -1;
+        }
+        AccountLocks.lock(lockStripe);
+        try {
+            return savedEpoch == epoch ? savedBalanceCents : balanceCents;
+        } finally {
+            AccountLocks.unlock(lockStripe);
+        }
+    }
+
+    /**
+     * Journaled accounts that no registry holds yet. Taken with every stripe held,
+     * this covers each opening journaled up to the cut.
+     */
+    static List<BankAccount> unregisteredOpenings() {
+        return new ArrayList<>(unregisteredOpenings);
+    }
+
+    // Called by AccountRegistry once the account is reachable through it
+    static void registered(BankAccount account) {
+        unregisteredOpenings.remove(account);
+    }
+
+    /**
+     * Start a new snapshot epoch. Callers must hold every stripe.
+     */
+    static int advanceSnapshotEpoch() {
+        return ++snapshotEpoch;
+    }
+
+    /**
+     * Apply a replayed journal delta during recovery (no validation, not journaled again)
+     */
+    void applyJournalDelta(long deltaCents) {
+        AccountLocks.lock(lockStripe);
+        try {
+            adjustBalance(deltaCents);
+        } finally {
+            AccountLocks.unlock(lockStripe);
+        }
+    }
+
+    /**
+     * Attach a write-ahead journal to every account (null detaches it)
+     */
+    public static synchronized void setJournal(TransactionJournal transactionJournal) {
+        journal = transactionJournal;
+    }
+
+    // Called when a journal closes: later postings are no longer journaled
+    static synchronized void detachJournal(TransactionJournal transactionJournal) {
+        if (journal == transactionJournal) {
+            journal = null;
+        }
+    }
+
+    static TransactionJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Apply rolling withdrawal/transfer limits to this account (null removes them).
+     * Activity already counted stays in the windows when limits are changed.
+     */
+    public void setVelocityLimits(VelocityLimits velocityLimits) {
+        AccountLocks.lock(lockStripe);
+        try {
+            VelocityLimits next = velocityLimits != null ? velocityLimits : VelocityLimits.NONE;
+            if (next.isLimitingWithdrawals() && dailyWithdrawals == null) {
+                dailyWithdrawals = new SlidingWindowCounter(Duration.ofDays(1), 24); // hourly buckets
+            }
+            if (next.isLimitingTransfers() && minuteTransfers == null) {
+                minuteTransfers = new SlidingWindowCounter(Duration.ofMinutes(1), 12); // 5-second buckets
+            }
+            limits = next;
+        } finally {
+            AccountLocks.unlock(lockStripe);
+        }
+    }
+
+    public VelocityLimits getVelocityLimits() {
+        return limits;
+    }
+
+    /**
+     * Choose where successful postings are reported (console by default)
+     */
+    public static void setAuditSink(AuditSink sink) {
+        auditSink = sink != null ? sink : AuditSink.DISCARD;
+    }
+
+    static AuditSink getAuditSink() {
+        return auditSink;
+    }
+
+    int getLockStripe() {
+        return lockStripe;
+    }
+
+    /**
+     * Non-throwing form of the amount validation shared by deposit, withdraw and transfer
+     */
+    static boolean isValidAmount(double amount) {
+        return Double.isFinite(amount) && amount >= MIN_DEPOSIT && amount <= MAX_TRANSACTION;
+    }
+
+    /**
+     * Display account information
+     */
+    public void displayAccountInfo() {
+        System.out.println("╔═══════════════════════════════════╗");
+        System.out.println("║         ACCOUNT DETAILS           ║");
+        System.out.println("╠═══════════════════════════════════╣");
+        System.out.printf("║ Number:  %-20s ║%n", accountNumber);
+        System.out.printf("║ Holder:  %-20s ║%n", accountHolder);
+        System.out.printf("║ Balance: $%-19.2f ║%n", getBalance());
+        System.out.println("╚═══════════════════════════════════╝");
+    }
+
+    // Validation Methods
+    private void validateAccountNumber(String accountNumber) {
+        if (accountNumber == null || accountNumber.trim().isEmpty()) {
+            throw new InvalidTransactionException(
+                "Account number cannot be null or empty", 
+                "ACCOUNT_CREATION"
+            );
+        }
+        if (accountNumber.trim().length() < 3) {
+            throw new InvalidTransactionException(
+                "Account number must be at least 3 characters", 
+                "ACCOUNT_CREATION"
+            );
+        }
+    }
+
+    private void validateAccountHolder(String accountHolder) {
+        if (accountHolder == null || accountHolder.trim().isEmpty()) {
+            throw new InvalidTransactionException(
+                "Account holder name cannot be null or empty", 
+                "ACCOUNT_CREATION"
+            );
+        }
+        if (accountHolder.trim().length() < 2) {
+            throw new InvalidTransactionException(
+                "Account holder name must be at least 2 characters", 
+                "ACCOUNT_CREATION"
+            );
+        }
+    }
+
+    private void validateInitialBalance(double initialBalance) {
+        if (initialBalance < 0) {
+            throw new InvalidTransactionException(
+                "Initial balance cannot be negative", 
+                "ACCOUNT_CREATION", 
+                initialBalance
+            );
+        }
+        if (Double.isNaN(initialBalance) || Double.isInfinite(initialBalance)) {
+            throw new InvalidTransactionException(
+                "Initial balance must be a valid number", 
+                "ACCOUNT_CREATION", 
+                initialBalance
+            );
+        }
+        if (initialBalance > MAX_INITIAL_BALANCE) {
+            throw new InvalidTransactionException(
+                String.format("Maximum initial balance is $%.2f", MAX_INITIAL_BALANCE),
+                "ACCOUNT_CREATION",
+                initialBalance
+            );
+        }
+    }
+
+    private void validateDepositAmount(double amount) {
+        if (amount <= 0) {
+            throw new InvalidTransactionException(
+                "Deposit amount must be positive", 
+                "DEPOSIT", 
+                amount,
+                "Amount must be greater than 0"
+            );
+        }
+        if (amount < MIN_DEPOSIT) {
+            throw new InvalidTransactionException(
+                String.format("Minimum deposit is $%.2f", MIN_DEPOSIT), 
+                "DEPOSIT", 
+                amount
+            );
+        }
+        if (amount > MAX_TRANSACTION) {
+            throw new InvalidTransactionException(
+                String.format("Maximum transaction is $%.2f", MAX_TRANSACTION), 
+                "DEPOSIT", 
+                amount
+            );
+        }
+        if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+            throw new InvalidTransactionException(
+                "Invalid deposit amount", 
+                "DEPOSIT", 
+                amount
+            );
+        }
+    }
+
+    private void validateWithdrawalAmount(double amount) {
+        if (amount <= 0) {
+            throw new InvalidTransactionException(
+                "Withdrawal amount must be positive", 
+                "WITHDRAWAL", 
+                amount
+            );
+        }
+        if (amount < MIN_WITHDRAWAL) {
+            throw new InvalidTransactionException(
+                String.format("Minimum withdrawal is $%.2f", MIN_WITHDRAWAL), 
+                "WITHDRAWAL", 
+                amount
+            );
+        }
+        if (amount > MAX_TRANSACTION) {
+            throw new InvalidTransactionException(
+                String.format("Maximum transaction is $%.2f", MAX_TRANSACTION), 
+                "WITHDRAWAL", 
+                amount
+            );
+        }
+        // The rolling total is checked under the account's lock; this only rejects amounts that can never fit
+        VelocityLimits current = limits;
+        if (current.isLimitingWithdrawals() && amount > current.getDailyWithdrawalLimit()) {
+            throw new InvalidTransactionException(
+                String.format("Daily withdrawal limit of $%.2f exceeded", current.getDailyWithdrawalLimit()),
+                "WITHDRAWAL",
+                amount,
+                "Velocity limit"
+            );
+        }
+        if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+            throw new InvalidTransactionException(
+                "Invalid withdrawal amount", 
+                "WITHDRAWAL", 
+                amount
+            );
+        }
+    }
+
+    private void validateTransferAccount(BankAccount toAccount) throws AccountNotFoundException {
+        if (toAccount == null) {
+            throw new AccountNotFoundException(
+                "Destination account cannot be null", 
+                "NULL_ACCOUNT", 
+                "TRANSFER"
+            );
+        }
+    }
+
+    private void validateTransferAmount(double amount) {
+        if (amount <= 0) {
+            throw new InvalidTransactionException(
+                "Transfer amount must be positive", 
+                "TRANSFER", 
+                amount
+            );
+        }
+        if (amount < MIN_WITHDRAWAL) {
+            throw new InvalidTransactionException(
+                String.format("Minimum transfer is $%.2f", MIN_WITHDRAWAL), 
+                "TRANSFER", 
+                amount
+            );
+        }
+        if (amount > MAX_TRANSACTION) {
+            throw new InvalidTransactionException(
+                String.format("Maximum transaction is $%.2f", MAX_TRANSACTION), 
+                "TRANSFER", 
+                amount
+            );
+        }
+        if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+            throw new InvalidTransactionException(
+                "Invalid transfer amount", 
+                "TRANSFER", 
+                amount
+            );
+        }
+    }
+
+    // Getters
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public String getAccountHolder() {
+        return accountHolder;
+    }
+
+    public double getBalance() {
+        return Money.toDouble(balanceCents);
+    }
+
+    public long getBalanceCents() {
+        return balanceCents;
+    }
+}
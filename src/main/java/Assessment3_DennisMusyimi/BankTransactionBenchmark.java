@@ -0,0 +1,540 @@
+package Assessment3_DennisMusyimi;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * BankTransactionBenchmark - throughput measurements for the bank transaction code.
+ * Sizes can be tuned with system properties, e.g. -Dbench.accounts=1000000
+ */
+public class BankTransactionBenchmark {
+    private static final int ACCOUNTS = Integer.getInteger("bench.accounts", 1_000_000);
+    private static final int OPS_PER_THREAD = Integer.getInteger("bench.ops", 2_000_000);
+    private static final double ZIPF_SKEW = Double.parseDouble(System.getProperty("bench.zipf", "0.99"));
+    private static final double INITIAL_BALANCE = 1_000_000.0;
+
+    // Results are published here so the JIT cannot discard the measured work
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("═══════════════════════════════════════════════════════");
+        System.out.println("        BANK TRANSACTION SYSTEM BENCHMARK");
+        System.out.println("═══════════════════════════════════════════════════════\n");
+
+        // Every posting is audited; sections that do not measure auditing discard the events
+        BankAccount.setAuditSink(AuditSink.DISCARD);
+        benchmarkConcurrentTransfers();
+        benchmarkAmountRounding();
+        benchmarkBatchPosting();
+        benchmarkRegistryLookups();
+        benchmarkJournalPolicies();
+        benchmarkSnapshotRestart();
+        benchmarkFailurePaths();
+        benchmarkAuditSinks();
+        benchmarkVelocityLimits();
+    }
+
+    private static void benchmarkConcurrentTransfers() throws InterruptedException {
+        System.out.println("1. CONCURRENT TRANSFERS (Zipf-skewed, " + ACCOUNTS + " accounts)");
+        System.out.println("─────────────────────────────────────────────────────");
+
+        BankAccount[] accounts = createAccounts(ACCOUNTS);
+        ZipfSampler sampler = new ZipfSampler(ACCOUNTS, ZIPF_SKEW);
+        long expectedTotal = totalBalanceCents(accounts);
+
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        double singleThreadRate = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double opsPerSecond = runTransfers(accounts, sampler, threads, OPS_PER_THREAD);
+            if (threads == 1) {
+                singleThreadRate = opsPerSecond;
+            }
+            System.out.printf("  %2d thread(s): %,14.0f transfers/s  (scaling x%.2f)%n",
+                             threads, opsPerSecond, opsPerSecond / singleThreadRate);
+        }
+
+        long actualTotal = totalBalanceCents(accounts);
+        System.out.printf("  Money conserved: %s (expected $%.2f, actual $%.2f)%n",
+                         expectedTotal == actualTotal ? "YES" : "NO - LOST UPDATES",
+                         Money.toDouble(expectedTotal), Money.toDouble(actualTotal));
+        System.out.println("─────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkAmountRounding() {
+        System.out.println("2. AMOUNT ROUNDING (BigDecimal vs long cents)");
+        System.out.println("─────────────────────────────────────────────────────");
+
+        double[] amounts = new double[1 << 16];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int mismatches = 0;
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = random.nextInt(5_000_000) / 1000.0;
+            if (Money.toCents(amounts[i]) != Math.round(legacyRoundAmount(amounts[i]) * 100)) {
+                mismatches++;
+            }
+        }
+        System.out.println("  Rounding mismatches on " + amounts.length + " samples: " + mismatches);
+
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2; // first rounds are JIT warm-up
+            measureRounding("BigDecimal roundAmount", amounts, true, report);
+            measureRounding("Money.toCents", amounts, false, report);
+        }
+        System.out.println("─────────────────────────────────────────────────────\n");
+    }
+
+    private static void measureRounding(String label, double[] amounts, boolean legacy, boolean report) {
+        com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int iterations = 20_000_000;
+        int mask = amounts.length - 1;
+
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long begin = System.nanoTime();
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            double amount = amounts[i & mask];
+            checksum += legacy ? Math.round(legacyRoundAmount(amount) * 100) : Money.toCents(amount);
+        }
+        long elapsed = System.nanoTime() - begin;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        if (report) {
+            System.out.printf("  %-24s %7.2f ns/op  %7.2f bytes/op  (checksum %d)%n",
+                             label, (double) elapsed / iterations, (double) allocated / iterations, checksum);
+        }
+    }
+
+    // The rounding BankAccount used before amounts were kept in cents
+    private static double legacyRoundAmount(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    private static void benchmarkBatchPosting() {
+        System.out.println("3. BATCH POSTING (per-call API vs postBatch)");
+        System.out.println("─────────────────────────────────────────────────────");
+
+        int batchSize = Integer.getInteger("bench.batch", 1_000_000);
+        BankAccount[] accounts = createAccounts(10_000);
+        List<Txn> batch = new ArrayList<>(batchSize);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < batchSize; i++) {
+            BankAccount account = accounts[random.nextInt(accounts.length)];
+            double amount = 1 + random.nextInt(100_000) / 100.0;
+            switch (random.nextInt(3)) {
+                case 0:
+                    batch.add(Txn.deposit(account, amount));
+                    break;
+                case 1:
+                    batch.add(Txn.withdrawal(account, amount));
+                    break;
+                default:
+                    batch.add(Txn.transfer(account, accounts[random.nextInt(accounts.length)], amount));
+            }
+        }
+
+        // Both paths print every posting; send it nowhere so only formatting is measured
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        BankAccount.setAuditSink(ConsoleAuditSink.INSTANCE);
+        long begin = System.nanoTime();
+        int failures = 0;
+        for (Txn txn : batch) {
+            try {
+                switch (txn.getType()) {
+                    case DEPOSIT:
+                        txn.getAccount().deposit(txn.getAmount());
+                        break;
+                    case WITHDRAWAL:
+                        txn.getAccount().withdraw(txn.getAmount());
+                        break;
+                    default:
+                        txn.getAccount().transfer(txn.getTarget(), txn.getAmount());
+                }
+            } catch (Exception e) {
+                failures++;
+            }
+        }
+        long perCallNanos = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        byte[] results = TransactionBatch.postBatch(batch);
+        long batchNanos = System.nanoTime() - begin;
+        System.setOut(console);
+        BankAccount.setAuditSink(AuditSink.DISCARD);
+        int batchFailures = 0;
+        for (byte result : results) {
+            if (result != TxnStatus.OK.code()) {
+                batchFailures++;
+            }
+        }
+
+        System.out.printf("  Per-call API: %,12.0f txns/s  (%d rejected)%n", batchSize / (perCallNanos / 1e9), failures);
+        System.out.printf("  postBatch:    %,12.0f txns/s  (%d rejected)%n", batchSize / (batchNanos / 1e9), batchFailures);
+        System.out.println("─────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkRegistryLookups() {
+        System.out.println("4. ACCOUNT REGISTRY LOOKUPS (" + ACCOUNTS + " accounts)");
+        System.out.println("─────────────────────────────────────────────────────");
+
+        BankAccount[] accounts = createAccounts(ACCOUNTS);
+        AccountRegistry registry = new AccountRegistry();
+        for (BankAccount account : accounts) {
+            registry.register(account);
+        }
+        String[] keys = new String[accounts.length];
+        for (int i = 0; i < accounts.length; i++) {
+            keys[i] = new String(accounts[i].getAccountNumber()); // distinct instance, as if parsed from input
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int samples = 1_000_000;
+        long[] latencies = new long[samples];
+        for (int round = 0; round < 2; round++) { // first round is JIT warm-up
+            for (int i = 0; i < samples; i++) {
+                String key = keys[random.nextInt(keys.length)];
+                long begin = System.nanoTime();
+                BankAccount found = registry.find(key);
+                latencies[i] = System.nanoTime() - begin;
+                if (found == null) {
+                    throw new IllegalStateException("Missing account " + key);
+                }
+            }
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("  p50 %d ns, p90 %d ns, p99 %d ns, p99.9 %d ns, max %d ns%n",
+                         latencies[samples / 2], latencies[samples * 9 / 10], latencies[samples * 99 / 100],
+                         latencies[samples * 999 / 1000], latencies[samples - 1]);
+        System.out.println("  (includes ~System.nanoTime() overhead per sample)");
+        System.out.println("─────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkJournalPolicies() throws Exception {
+        int threads = Integer.getInteger("bench.journal.threads", 8);
+        int opsPerThread = Integer.getInteger("bench.journal.ops", 20_000);
+        System.out.println("5. JOURNALED TRANSFERS (" + threads + " threads, " + opsPerThread + " transfers each)");
+        System.out.println("─────────────────────────────────────────────────────");
+
+        BankAccount[] accounts = createAccounts(100_000);
+        ZipfSampler sampler = new ZipfSampler(accounts.length, ZIPF_SKEW);
+        for (TransactionJournal.FsyncPolicy policy : TransactionJournal.FsyncPolicy.values()) {
+            Path directory = Files.createTempDirectory("journal-bench");
+            try (TransactionJournal journal = TransactionJournal.open(directory, policy)) {
+                BankAccount.setJournal(journal);
+                double opsPerSecond = runTransfers(accounts, sampler, threads, opsPerThread);
+                System.out.printf("  %-13s %,12.0f transfers/s%n", policy, opsPerSecond);
+            } finally {
+                BankAccount.setJournal(null);
+                deleteDirectory(directory);
+            }
+        }
+        System.out.println("─────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkSnapshotRestart() throws Exception {
+        System.out.println("6. SNAPSHOT + JOURNAL TAIL RESTART (" + ACCOUNTS + " accounts)");
+        System.out.println("─────────────────────────────────────────────────────");
+
+        Path directory = Files.createTempDirectory("snapshot-bench");
+        BankAccount[] accounts = createAccounts(ACCOUNTS);
+        AccountRegistry registry = new AccountRegistry(ACCOUNTS);
+        for (BankAccount account : accounts) {
+            registry.register(account);
+        }
+        ZipfSampler sampler = new ZipfSampler(ACCOUNTS, ZIPF_SKEW);
+
+        try (TransactionJournal journal = TransactionJournal.open(directory, TransactionJournal.FsyncPolicy.OS_DEFAULT)) {
+            BankAccount.setJournal(journal);
+
+            // Snapshot while a background thread keeps transferring
+            Thread traffic = new Thread(() -> {
+                try {
+                    runTransfers(accounts, sampler, 1, 200_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            traffic.start();
+            long begin = System.nanoTime();
+            BalanceSnapshot snapshot = BalanceSnapshot.write(registry, directory.resolve("snapshot.bin"));
+            long writeNanos = System.nanoTime() - begin;
+            traffic.join();
+            BankAccount.setJournal(null);
+
+            begin = System.nanoTime();
+            AccountRegistry restored = new AccountRegistry(snapshot.getAccountCount());
+            long replayed = BalanceSnapshot.recover(snapshot.getFile(), journal, restored);
+            long restartNanos = System.nanoTime() - begin;
+
+            int mismatches = 0;
+            for (BankAccount account : accounts) {
+                if (restored.find(account.getAccountNumber()).getBalanceCents() != account.getBalanceCents()) {
+                    mismatches++;
+                }
+            }
+            System.out.printf("  Snapshot written in %.1f ms under live transfers (%,d accounts)%n",
+                             writeNanos / 1e6, snapshot.getAccountCount());
+            System.out.printf("  Restart: snapshot load + %,d tail records in %.1f ms%n", replayed, restartNanos / 1e6);
+            System.out.println("  Balances matching live state after restart: " + (mismatches == 0 ? "ALL" : mismatches + " MISMATCHES"));
+        } finally {
+            BankAccount.setJournal(null);
+            deleteDirectory(directory);
+        }
+        System.out.println("─────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkFailurePaths() {
+        System.out.println("7. WITHDRAWAL FAILURE HANDLING (exceptions vs TxnStatus)");
+        System.out.println("─────────────────────────────────────────────────────");
+
+        BankAccount account = new BankAccount("FAIL001", "Failure Tester", 25_000.0);
+        int iterations = 2_000_000;
+        double[] failureRates = { 0.0, 0.1, 0.3, 0.5 };
+        for (int round = 0; round < 2; round++) { // first round is JIT warm-up
+            for (double failureRate : failureRates) {
+                // Failing withdrawals ask for more than the balance; successful ones are paid back
+                boolean[] fails = new boolean[1024];
+                for (int i = 0; i < fails.length; i++) {
+                    fails[i] = i < failureRate * fails.length;
+                }
+                long heavy = timeWithdrawals(account, fails, iterations, 0);
+                long light = timeWithdrawals(account, fails, iterations, 1);
+                long status = timeWithdrawals(account, fails, iterations, 2);
+                if (round == 1) {
+                    System.out.printf("  %3.0f%% failing: stack-trace exception %6.1f ns/op, light exception %6.1f ns/op, TxnStatus %6.1f ns/op%n",
+                                     failureRate * 100, (double) heavy / iterations, (double) light / iterations,
+                                     (double) status / iterations);
+                }
+            }
+        }
+        System.out.println("─────────────────────────────────────────────────────\n");
+    }
+
+    // mode 0: exception with a captured stack trace (the old behaviour), 1: current exception, 2: tryWithdraw
+    private static long timeWithdrawals(BankAccount account, boolean[] fails, int iterations, int mode) {
+        long failures = 0;
+        long begin = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            double amount = fails[i & (fails.length - 1)] ? 40_000.0 : 0.01;
+            if (mode == 2) {
+                if (account.tryWithdraw(amount) == TxnStatus.OK) {
+                    account.credit(1);
+                } else {
+                    failures++;
+                }
+                continue;
+            }
+            try {
+                account.debit(Money.toCents(amount));
+                account.credit(1);
+            } catch (InsufficientFundsException e) {
+                if (mode == 0) {
+                    sink = new Exception(e.getMessage()); // fills in a stack trace like the old exception did
+                }
+                failures++;
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        sink = failures;
+        return elapsed;
+    }
+
+    private static void benchmarkAuditSinks() throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int opsPerThread = 200_000;
+        System.out.println("8. AUDITED TRANSFERS (" + threads + " threads, synchronous console vs ring buffer)");
+        System.out.println("─────────────────────────────────────────────────────");
+
+        BankAccount[] accounts = createAccounts(100_000);
+        ZipfSampler sampler = new ZipfSampler(accounts.length, ZIPF_SKEW);
+        Path directory = Files.createTempDirectory("audit-bench");
+        PrintStream console = System.out;
+        try {
+            // Console sink: every posting formats and writes two lines through the shared System.out lock
+            try (PrintStream file = new PrintStream(Files.newOutputStream(directory.resolve("console.log")))) {
+                System.setOut(file);
+                BankAccount.setAuditSink(ConsoleAuditSink.INSTANCE);
+                double opsPerSecond = runPublicTransfers(accounts, sampler, threads, opsPerThread);
+                System.setOut(console);
+                System.out.printf("  %-13s %,12.0f transfers/s%n", "Console", opsPerSecond);
+            }
+
+            // Ring buffer sink: postings hand raw fields to a background writer
+            try (RingBufferAuditSink audit = new RingBufferAuditSink(directory.resolve("audit.jsonl"))) {
+                BankAccount.setAuditSink(audit);
+                double opsPerSecond = runPublicTransfers(accounts, sampler, threads, opsPerThread);
+                System.out.printf("  %-13s %,12.0f transfers/s%n", "Ring buffer", opsPerSecond);
+            }
+            try (Stream<String> lines = Files.lines(directory.resolve("audit.jsonl"))) {
+                System.out.printf("  Audit records written: %,d (expected %,d)%n", lines.count(), (long) threads * opsPerThread);
+            }
+        } finally {
+            System.setOut(console);
+            BankAccount.setAuditSink(AuditSink.DISCARD);
+            deleteDirectory(directory);
+        }
+        System.out.println("─────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkVelocityLimits() throws InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        System.out.println("9. TRANSFERS WITH VELOCITY LIMITS (" + threads + " threads)");
+        System.out.println("─────────────────────────────────────────────────────");
+
+        BankAccount[] accounts = createAccounts(Integer.getInteger("bench.limits.accounts", 100_000));
+        ZipfSampler sampler = new ZipfSampler(accounts.length, ZIPF_SKEW);
+        double unlimited = runTransfers(accounts, sampler, threads, OPS_PER_THREAD / 4);
+        System.out.printf("  %-13s %,12.0f transfers/s%n", "No limits", unlimited);
+
+        // Limits high enough that every transfer passes, so only the window bookkeeping is measured
+        VelocityLimits limits = new VelocityLimits(INITIAL_BALANCE, Integer.MAX_VALUE);
+        for (BankAccount account : accounts) {
+            account.setVelocityLimits(limits);
+        }
+        long gcBefore = collectionCount();
+        double limited = runTransfers(accounts, sampler, threads, OPS_PER_THREAD / 4);
+        System.out.printf("  %-13s %,12.0f transfers/s (%d GCs during run)%n", "Limited", limited, collectionCount() - gcBefore);
+        System.out.println("─────────────────────────────────────────────────────\n");
+    }
+
+    private static long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    // Like runTransfers but through the public, audited transfer() entry point
+    private static double runPublicTransfers(BankAccount[] accounts, ZipfSampler sampler, int threads, int opsPerThread)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    for (int i = 0; i < opsPerThread; i++) {
+                        BankAccount from = accounts[sampler.next(random)];
+                        BankAccount to = accounts[sampler.next(random)];
+                        if (from != to) {
+                            from.transfer(to, 1.0);
+                        } else {
+                            from.deposit(1.0);
+                        }
+                    }
+                } catch (InterruptedException | InsufficientFundsException | InvalidTransactionException
+                         | AccountNotFoundException e) {
+                    System.err.println("❌ Worker failed: " + e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        return (double) threads * opsPerThread / (elapsed / 1e9);
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    private static double runTransfers(BankAccount[] accounts, ZipfSampler sampler, int threads, int opsPerThread)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    for (int i = 0; i < opsPerThread; i++) {
+                        BankAccount from = accounts[sampler.next(random)];
+                        BankAccount to = accounts[sampler.next(random)];
+                        if (from != to) {
+                            from.moveFunds(to, 100L);
+                        }
+                    }
+                } catch (InterruptedException | InsufficientFundsException e) {
+                    System.err.println("❌ Worker failed: " + e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        return (double) threads * opsPerThread / (elapsed / 1e9);
+    }
+
+    private static BankAccount[] createAccounts(int count) {
+        BankAccount[] accounts = new BankAccount[count];
+        for (int i = 0; i < count; i++) {
+            accounts[i] = new BankAccount(String.format("ACC%07d", i), "Holder " + i, INITIAL_BALANCE);
+        }
+        return accounts;
+    }
+
+    private static long totalBalanceCents(BankAccount[] accounts) {
+        long total = 0;
+        for (BankAccount account : accounts) {
+            total += account.getBalanceCents();
+        }
+        return total;
+    }
+
+    /**
+     * Samples ranks 0..n-1 with probability proportional to 1/(rank+1)^skew
+     */
+    static final class ZipfSampler {
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double skew) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1.0 / Math.pow(i + 1, skew);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int next(ThreadLocalRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package Assessment3_DennisMusyimi;
+
+// Books Class
+class Books extends Product {
+    private String author;
+    private String publisher;
+    private String isbn;
+    private long isbnKey; // ISBN-13 as a number, the same for both forms of one ISBN
+
+    public Books(String productId, String name, double basePrice, String category,
+                String author, String publisher, String isbn) {
+        super(productId, name, basePrice, category);
+        validateAuthor(author);
+        validatePublisher(publisher);
+        this.isbnKey = validateISBN(isbn);
+
+        this.author = author.trim();
+        this.publisher = publisher.trim();
+        this.isbn = isbn.trim();
+    }
+
+    @Override
+    public String getProductType() {
+        return "Books";
+    }
+
+    @Override
+    protected void displaySpecificInfo() {
+        System.out.printf("║ %-20s: %-20s ║%n", "Author", author);
+        System.out.printf("║ %-20s: %-20s ║%n", "Publisher", publisher);
+        System.out.printf("║ %-20s: %-20s ║%n", "ISBN", isbn);
+    }
+
+    private void validateAuthor(String author) {
+        if (author == null || author.trim().isEmpty()) {
+            throw new InvalidProductDataException("Author cannot be null or empty", "author", author);
+        }
+    }
+
+    private void validatePublisher(String publisher) {
+        if (publisher == null || publisher.trim().isEmpty()) {
+            throw new InvalidProductDataException("Publisher cannot be null or empty", "publisher", publisher);
+        }
+    }
+
+    private long validateISBN(String isbn) {
+        if (isbn == null || isbn.trim().isEmpty()) {
+            throw new InvalidProductDataException("ISBN cannot be null or empty", "isbn", isbn);
+        }
+        long key = IsbnValidator.toKey(isbn.trim());
+        if (key == IsbnValidator.INVALID_CHECK_DIGIT) {
+            throw new InvalidProductDataException("Invalid ISBN check digit", "isbn", isbn);
+        }
+        if (key < 0) {
+            throw new InvalidProductDataException("Invalid ISBN format", "isbn", isbn);
+        }
+        return key;
+    }
+
+    public String getAuthor() { return author; }
+    public String getPublisher() { return publisher; }
+    public String getISBN() { return isbn; }
+    public long getIsbnKey() { return isbnKey; }
+}
@@ -0,0 +1,327 @@
+package Assessment3_DennisMusyimi;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A saved catalogue, memory-mapped read-only. Every product has a fixed-size
+ * slot, so the n-th product is at a known offset, and an open-addressed table
+ * of productId hashes finds a slot without building anything on heap. Opening
+ * reads only the header; a product's fields are decoded when it is asked for.
+ * Only absolute reads are made on the mapping, so any number of threads may
+ * share one CatalogueFile.
+ *
+ * Layout (big-endian):
+ *   header   int magic "CATM", int version, int productCount, int tableLength, long stringsOffset
+ *   slots    productCount slots of SLOT_BYTES
+ *   table    tableLength ints, slot + 1 for a product (0 for empty), linear probing on the productId hash
+ *   strings  int byteCount plus UTF-8 for each distinct text value; slots refer to them by offset
+ *
+ * A slot holds the type, the productId hash, text references for id, name and
+ * category, available stock, low-stock threshold and base price, then the type's
+ * own fields: warranty and power for Electronics; size, material and color
+ * references for Clothing; author, publisher and ISBN references for Books.
+ * The whole file is one mapping, so it is limited to 2GB (about 20M products).
+ */
+final class CatalogueFile {
+    private static final int MAGIC = 0x4341544D; // "CATM"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int SLOT_BYTES = 64;
+
+    private static final byte ELECTRONICS = 0;
+    private static final byte CLOTHING = 1;
+    private static final byte BOOKS = 2;
+
+    // Slot field offsets
+    private static final int TYPE = 0;
+    private static final int ID_HASH = 4;
+    private static final int ID = 8;
+    private static final int NAME = 12;
+    private static final int CATEGORY = 16;
+    private static final int AVAILABLE = 20;
+    private static final int THRESHOLD = 24;
+    private static final int PRICE = 32;
+    private static final int FIELD_1 = 40;       // warranty, size, author
+    private static final int FIELD_2 = 44;       // material, publisher
+    private static final int FIELD_3 = 48;       // color, ISBN
+    private static final int POWER = 48;         // Electronics only, a double
+
+    private final Path path;
+    private final MappedByteBuffer data;
+    private final int productCount;
+    private final int tableOffset;
+    private final int tableMask;
+    private final int stringsOffset;
+
+    private CatalogueFile(Path path, MappedByteBuffer data, int productCount, int tableLength, int stringsOffset) {
+        this.path = path;
+        this.data = data;
+        this.productCount = productCount;
+        this.tableOffset = HEADER_BYTES + productCount * SLOT_BYTES;
+        this.tableMask = tableLength - 1;
+        this.stringsOffset = stringsOffset;
+    }
+
+    /**
+     * Map a file written by save; only the header is read
+     */
+    static CatalogueFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Catalogue file too large to map: " + path);
+            }
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("Not a catalogue file: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (data.getInt(0) != MAGIC) {
+                throw new IOException("Not a catalogue file: " + path);
+            }
+            if (data.getInt(4) != VERSION) {
+                throw new IOException("Unsupported catalogue file version " + data.getInt(4) + ": " + path);
+            }
+            int productCount = data.getInt(8);
+            int tableLength = data.getInt(12);
+            long stringsOffset = data.getLong(16);
+            long tableOffset = HEADER_BYTES + (long) productCount * SLOT_BYTES;
+            if (productCount < 0 || tableLength < 1 || Integer.bitCount(tableLength) != 1 || tableLength <= productCount
+                    || stringsOffset != tableOffset + 4L * tableLength || stringsOffset > fileSize) {
+                throw new IOException("Corrupt catalogue header: " + path);
+            }
+            return new CatalogueFile(path, data, productCount, tableLength, (int) stringsOffset);
+        }
+    }
+
+    /**
+     * Write every record's product, available stock and low-stock threshold.
+     * The file is written beside the target and moved into place, so a mapping of
+     * the old file is never overwritten under its readers.
+     * @return number of products written
+     */
+    static int save(Path path, Iterable<StockRecord> records) throws IOException {
+        List<StockRecord> products = new ArrayList<>();
+        for (StockRecord record : records) {
+            products.add(record);
+        }
+        int productCount = products.size();
+        int tableLength = Integer.highestOneBit(Math.max(1, productCount) * 2 - 1) << 1; // at most half full
+        long stringsOffset = HEADER_BYTES + (long) productCount * SLOT_BYTES + 4L * tableLength;
+        if (stringsOffset > Integer.MAX_VALUE) {
+            throw new IOException("Too many products for one catalogue file: " + productCount);
+        }
+
+        Path absolute = path.toAbsolutePath();
+        Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            StringArea strings = new StringArea();
+            int[] table = new int[tableLength];
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(productCount);
+                out.writeInt(tableLength);
+                out.writeLong(stringsOffset);
+
+                for (int slot = 0; slot < productCount; slot++) {
+                    StockRecord record = products.get(slot);
+                    Product product = record.getProduct();
+                    int hash = product.getProductId().hashCode();
+                    int bucket = mix(hash) & (tableLength - 1);
+                    while (table[bucket] != 0) {
+                        bucket = (bucket + 1) & (tableLength - 1);
+                    }
+                    table[bucket] = slot + 1;
+                    writeSlot(out, product, hash, record, strings);
+                }
+                for (int entry : table) {
+                    out.writeInt(entry);
+                }
+                if (stringsOffset + strings.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Catalogue text too large for one catalogue file");
+                }
+                strings.writeTo(out);
+            }
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return productCount;
+    }
+
+    private static void writeSlot(DataOutputStream out, Product product, int hash, StockRecord record, StringArea strings)
+            throws IOException {
+        int id = strings.ref(product.getProductId());
+        int name = strings.ref(product.getName());
+        int category = strings.ref(product.getCategory());
+        out.writeByte(typeCode(product));
+        out.writeByte(0);
+        out.writeShort(0);
+        out.writeInt(hash);
+        out.writeInt(id);
+        out.writeInt(name);
+        out.writeInt(category);
+        out.writeInt(record.getAvailable());
+        out.writeInt(record.getLowStockThreshold());
+        out.writeInt(0);
+        out.writeDouble(product.getBasePrice());
+        if (product instanceof Electronics) {
+            Electronics electronics = (Electronics) product;
+            out.writeInt(electronics.getWarrantyPeriod());
+            out.writeInt(0);
+            out.writeDouble(electronics.getPowerConsumption());
+            out.writeLong(0);
+        } else if (product instanceof Clothing) {
+            Clothing clothing = (Clothing) product;
+            out.writeInt(strings.ref(clothing.getSize()));
+            out.writeInt(strings.ref(clothing.getMaterial()));
+            out.writeInt(strings.ref(clothing.getColor()));
+            out.writeInt(0);
+            out.writeLong(0);
+        } else {
+            Books book = (Books) product;
+            out.writeInt(strings.ref(book.getAuthor()));
+            out.writeInt(strings.ref(book.getPublisher()));
+            out.writeInt(strings.ref(book.getISBN()));
+            out.writeInt(0);
+            out.writeLong(0);
+        }
+    }
+
+    int size() {
+        return productCount;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * The product's slot, or -1 when the file does not have it
+     */
+    int find(String productId) {
+        int hash = productId.hashCode();
+        for (int bucket = mix(hash) & tableMask; ; bucket = (bucket + 1) & tableMask) {
+            int entry = data.getInt(tableOffset + 4 * bucket);
+            if (entry == 0) {
+                return -1;
+            }
+            int slot = entry - 1;
+            if (data.getInt(slotOffset(slot) + ID_HASH) == hash && productId.equals(productId(slot))) {
+                return slot;
+            }
+        }
+    }
+
+    String productId(int slot) {
+        return text(slotOffset(slot) + ID);
+    }
+
+    /**
+     * Build the product in a slot, through its constructor, with its saved stock and threshold
+     */
+    StockRecord read(int slot) {
+        int at = slotOffset(slot);
+        String productId = text(at + ID);
+        String name = text(at + NAME);
+        String category = text(at + CATEGORY);
+        double price = data.getDouble(at + PRICE);
+        Product product;
+        switch (data.get(at + TYPE)) {
+            case ELECTRONICS:
+                product = new Electronics(productId, name, price, category, data.getInt(at + FIELD_1), data.getDouble(at + POWER));
+                break;
+            case CLOTHING:
+                product = new Clothing(productId, name, price, category,
+                                       text(at + FIELD_1), text(at + FIELD_2), text(at + FIELD_3));
+                break;
+            case BOOKS:
+                product = new Books(productId, name, price, category,
+                                    text(at + FIELD_1), text(at + FIELD_2), text(at + FIELD_3));
+                break;
+            default:
+                throw new InvalidProductDataException("Unknown product type in catalogue file " + path, "productType",
+                                                      String.valueOf(data.get(at + TYPE)));
+        }
+        StockRecord record = new StockRecord(product, data.getInt(at + AVAILABLE));
+        record.setLowStockThreshold(data.getInt(at + THRESHOLD));
+        return record;
+    }
+
+    private int slotOffset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    // The text value referred to by the int at offset
+    private String text(int offset) {
+        int at = stringsOffset + data.getInt(offset);
+        int length = at >= stringsOffset && at <= data.limit() - 4 ? data.getInt(at) : -1;
+        if (length < 0 || length > data.limit() - at - 4) {
+            throw new InvalidProductDataException("Corrupt text reference in catalogue file " + path, "offset",
+                                                  String.valueOf(offset));
+        }
+        byte[] utf8 = new byte[length];
+        data.get(at + 4, utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static byte typeCode(Product product) {
+        if (product instanceof Electronics) {
+            return ELECTRONICS;
+        }
+        if (product instanceof Clothing) {
+            return CLOTHING;
+        }
+        if (product instanceof Books) {
+            return BOOKS;
+        }
+        throw new InvalidProductDataException("Cannot save product type", "productType", product.getProductType());
+    }
+
+    // Spread String.hashCode's low bits, which are all the table looks at
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    // Distinct text values, each written once
+    private static final class StringArea {
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        int ref(String value) throws IOException {
+            Integer offset = offsets.get(value);
+            if (offset == null) {
+                offset = bytes.size();
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+                offsets.put(value, offset);
+            }
+            return offset;
+        }
+
+        int size() {
+            return bytes.size();
+        }
+
+        void writeTo(DataOutputStream target) throws IOException {
+            bytes.writeTo(target);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package Assessment3_DennisMusyimi;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Secondary indexes over an InventoryManager's records: products by type, by
+ * category and by the pair (hash to a price-sorted set), by price alone, and
+ * books by ISBN key. A range query is a skip-list seek plus a walk over the
+ * products matching its type, category and price, O(log n + k).
+ *
+ * Entries are immutable snapshots of (price, product ID), so a reprice swaps
+ * the entry. InventoryManager changes a product's entries only inside
+ * ConcurrentHashMap.compute for that product, which keeps add, replace and
+ * reprice of the same product from interleaving. Stock is not indexed; it is
+ * read live from the record while a query walks its range.
+ */
+final class CatalogueIndex {
+    // Sorts by price, then product ID; a null ID sorts before every real one (used for range bounds)
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        int byPrice = Double.compare(a.price, b.price);
+        if (byPrice != 0) {
+            return byPrice;
+        }
+        if (a.productId == null || b.productId == null) {
+            return a.productId == null ? (b.productId == null ? 0 : -1) : 1;
+        }
+        return a.productId.compareTo(b.productId);
+    };
+
+    static final class Entry {
+        final double price;
+        final String productId;
+        final StockRecord record;
+
+        Entry(double price, String productId, StockRecord record) {
+            this.price = price;
+            this.productId = productId;
+            this.record = record;
+        }
+    }
+
+    private final NavigableSet<Entry> byPrice = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<String, NavigableSet<Entry>> byType = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Entry>> byCategory = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Entry>> byTypeAndCategory = new ConcurrentHashMap<>();
+    private final Map<Long, Entry> byIsbn = new ConcurrentHashMap<>(); // books only, keyed by IsbnValidator key
+
+    /**
+     * Index a record at its product's current base price
+     * @return the entry, to be passed to remove later
+     */
+    Entry add(StockRecord record) {
+        Product product = record.getProduct();
+        Entry entry = new Entry(product.getBasePrice(), product.getProductId(), record);
+        byPrice.add(entry);
+        byType.computeIfAbsent(key(product.getProductType()), key -> new ConcurrentSkipListSet<>(ORDER)).add(entry);
+        byCategory.computeIfAbsent(key(product.getCategory()), key -> new ConcurrentSkipListSet<>(ORDER)).add(entry);
+        byTypeAndCategory.computeIfAbsent(key(product.getProductType(), product.getCategory()),
+                                          key -> new ConcurrentSkipListSet<>(ORDER)).add(entry);
+        if (product instanceof Books) {
+            byIsbn.put(((Books) product).getIsbnKey(), entry);
+        }
+        return entry;
+    }
+
+    void remove(Entry entry) {
+        Product product = entry.record.getProduct();
+        byPrice.remove(entry);
+        NavigableSet<Entry> type = byType.get(key(product.getProductType()));
+        if (type != null) {
+            type.remove(entry);
+        }
+        NavigableSet<Entry> category = byCategory.get(key(product.getCategory()));
+        if (category != null) {
+            category.remove(entry);
+        }
+        NavigableSet<Entry> typeAndCategory = byTypeAndCategory.get(key(product.getProductType(), product.getCategory()));
+        if (typeAndCategory != null) {
+            typeAndCategory.remove(entry);
+        }
+        if (product instanceof Books) {
+            byIsbn.remove(((Books) product).getIsbnKey(), entry); // another ID may have taken the ISBN since
+        }
+    }
+
+    StockRecord bookByIsbn(long isbnKey) {
+        Entry entry = byIsbn.get(isbnKey);
+        return entry != null ? entry.record : null;
+    }
+
+    /**
+     * Products matching every given criterion, in ascending price order.
+     * Type, category and price select the index range; inStockOnly is then
+     * checked per entry, since stock is not indexed.
+     * @param productType type to match (case-insensitive), or null for any
+     * @param category category to match (case-insensitive), or null for any
+     * @param minPrice lowest base price, inclusive
+     * @param maxPrice highest base price, inclusive
+     * @param inStockOnly skip products with no available stock
+     */
+    List<Product> query(String productType, String category, double minPrice, double maxPrice, boolean inStockOnly) {
+        List<Product> matches = new ArrayList<>();
+        if (!(minPrice <= maxPrice)) {
+            return matches;
+        }
+        // Every entry in the index named by the query's type and category matches both
+        NavigableSet<Entry> index;
+        if (productType != null && category != null) {
+            index = byTypeAndCategory.get(key(productType, category));
+        } else if (productType != null) {
+            index = byType.get(key(productType));
+        } else if (category != null) {
+            index = byCategory.get(key(category));
+        } else {
+            index = byPrice;
+        }
+        if (index == null) {
+            return matches;
+        }
+
+        Entry from = new Entry(minPrice, null, null);
+        Entry to = new Entry(Math.nextUp(maxPrice), null, null);
+        for (Entry entry : index.subSet(from, true, to, false)) {
+            if (inStockOnly && entry.record.getAvailable() <= 0) {
+                continue;
+            }
+            matches.add(entry.record.getProduct());
+        }
+        return matches;
+    }
+
+    int size() {
+        return byPrice.size();
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static String key(String productType, String category) {
+        return key(productType) + '\u0000' + key(category);
+    }
+}
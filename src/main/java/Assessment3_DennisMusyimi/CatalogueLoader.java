@@ -0,0 +1,631 @@
+package Assessment3_DennisMusyimi;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk product import into an InventoryManager. The file is read through a
+ * FileChannel in large chunks; each chunk of whole rows is handed to a worker
+ * pool that parses it, validates it (the product constructors) and inserts it,
+ * while the next chunk is read. Bad rows are counted and skipped, not fatal.
+ * Category, material and color are dictionary-encoded by the products
+ * themselves; publishers also repeat across millions of rows, so each distinct
+ * publisher is kept once per loader.
+ *
+ * CSV: one product per line, no quoting, '#' starts a comment line,
+ *   type,productId,name,basePrice,category,stock,...
+ * followed by warrantyMonths,powerWatts for Electronics; size,material,color
+ * for Clothing; author,publisher,isbn for Books.
+ *
+ * Binary (see convertCsvToBinary): "CAT1", then independently decodable blocks of
+ *   int byteLength, int rowCount, rows
+ * A block holds at most MAX_BLOCK_BYTES of rows, so a row longer than that
+ * cannot be converted.
+ * Each row is a type byte, then the same fields in CSV order. Text is a varint
+ * byte count plus UTF-8. Category, size, material, color and publisher are a
+ * varint (n << 1 | 1) naming the n-th such value spelled out earlier in the
+ * block, or (byteCount << 1) plus UTF-8 the first time. Stock and warranty are
+ * zig-zag varints, price and power are doubles.
+ */
+final class CatalogueLoader {
+    private static final int BINARY_MAGIC = 0x43415431; // "CAT1"
+    private static final int CHUNK_BYTES = 1 << 20;
+    private static final int MAX_BLOCK_BYTES = CHUNK_BYTES - 8; // rows of one binary block, after its header
+    private static final int MAX_ERRORS = 20;            // rejected rows beyond this are only counted
+    private static final byte ELECTRONICS = 0;
+    private static final byte CLOTHING = 1;
+    private static final byte BOOKS = 2;
+
+    private final InventoryManager inventory;
+    private final int threads;
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+
+    CatalogueLoader(InventoryManager inventory) {
+        this(inventory, Runtime.getRuntime().availableProcessors());
+    }
+
+    CatalogueLoader(InventoryManager inventory, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.inventory = inventory;
+        this.threads = threads;
+    }
+
+    /**
+     * Outcome of one load: how many rows went in, how many were rejected and why, and what it cost
+     */
+    static final class LoadReport {
+        private final long rowsLoaded;
+        private final long rowsRejected;
+        private final long elapsedNanos;
+        private final long peakHeapBytes;
+        private final int distinctStrings;
+        private final List<String> errors;
+
+        LoadReport(long rowsLoaded, long rowsRejected, long elapsedNanos, long peakHeapBytes,
+                   int distinctStrings, List<String> errors) {
+            this.rowsLoaded = rowsLoaded;
+            this.rowsRejected = rowsRejected;
+            this.elapsedNanos = elapsedNanos;
+            this.peakHeapBytes = peakHeapBytes;
+            this.distinctStrings = distinctStrings;
+            this.errors = errors;
+        }
+
+        long getRowsLoaded() { return rowsLoaded; }
+        long getRowsRejected() { return rowsRejected; }
+        long getElapsedNanos() { return elapsedNanos; }
+        long getPeakHeapBytes() { return peakHeapBytes; }
+        int getDistinctStrings() { return distinctStrings; }
+        // The first few rejections, "line N: reason" (CSV) or "row N: reason" (binary)
+        List<String> getErrors() { return errors; }
+
+        double getRowsPerSecond() {
+            return (rowsLoaded + rowsRejected) / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d rows loaded, %,d rejected in %.2f s (%,.0f rows/s), peak heap %,d MB, %,d distinct shared strings",
+                                 rowsLoaded, rowsRejected, elapsedNanos / 1e9, getRowsPerSecond(),
+                                 peakHeapBytes >> 20, distinctStrings);
+        }
+    }
+
+    LoadReport loadCsv(Path file) throws IOException {
+        return load(file, false);
+    }
+
+    LoadReport loadBinary(Path file) throws IOException {
+        return load(file, true);
+    }
+
+    private LoadReport load(Path file, boolean binary) throws IOException {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+
+        Batch batch = new Batch();
+        long begin = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (binary) {
+                readBinary(channel, batch);
+            } else {
+                readCsv(channel, batch);
+            }
+        } finally {
+            batch.finish();
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed(); // pools peak at different moments: an upper bound
+        }
+        return new LoadReport(batch.loaded.get(), batch.rejected.get(), elapsed, peakHeap, strings.size(),
+                              Collections.unmodifiableList(new ArrayList<>(batch.errors)));
+    }
+
+    // One load's worker pool and counters; at most two chunks per worker are in flight, bounding the heap
+    private final class Batch {
+        final ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "catalogue-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final Semaphore inFlight = new Semaphore(threads * 2);
+        final AtomicLong loaded = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+        void submit(Runnable chunk) throws IOException {
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while loading catalogue", e);
+            }
+            workers.execute(() -> {
+                try {
+                    chunk.run();
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        void reject(String where, long position, String reason) {
+            if (rejected.incrementAndGet() <= MAX_ERRORS) {
+                errors.add(where + " " + position + ": " + reason);
+            }
+        }
+
+        void finish() throws IOException {
+            workers.shutdown();
+            try {
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                workers.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while loading catalogue", e);
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- CSV
+
+    private void readCsv(FileChannel channel, Batch batch) throws IOException {
+        byte[] chunk = new byte[CHUNK_BYTES];
+        int filled = 0;
+        long line = 1;
+        while (true) {
+            int read = channel.read(ByteBuffer.wrap(chunk, filled, chunk.length - filled));
+            if (read > 0) {
+                filled += read;
+                if (filled < chunk.length) {
+                    continue;
+                }
+            }
+            if (read < 0) {
+                if (filled > 0) {
+                    byte[] rows = chunk;
+                    int length = filled;
+                    long firstLine = line;
+                    batch.submit(() -> loadCsvRows(rows, length, firstLine, batch));
+                }
+                return;
+            }
+            // Hand off every complete line; the partial last line moves to the next chunk
+            int end = lastIndexOf(chunk, (byte) '\n', filled) + 1;
+            if (end == 0) {
+                chunk = Arrays.copyOf(chunk, chunk.length * 2); // one line longer than the chunk
+                continue;
+            }
+            byte[] rows = chunk;
+            long firstLine = line;
+            batch.submit(() -> loadCsvRows(rows, end, firstLine, batch));
+            line += count(chunk, (byte) '\n', end);
+
+            byte[] next = new byte[Math.max(CHUNK_BYTES, filled - end)];
+            System.arraycopy(chunk, end, next, 0, filled - end);
+            filled -= end;
+            chunk = next;
+        }
+    }
+
+    private void loadCsvRows(byte[] data, int length, long firstLine, Batch batch) {
+        String[] fields = new String[9];
+        long line = firstLine;
+        for (int start = 0; start < length; line++) {
+            int end = indexOf(data, (byte) '\n', start, length);
+            int stop = end > start && data[end - 1] == '\r' ? end - 1 : end;
+            if (stop > start && data[start] != '#') {
+                try {
+                    int count = split(data, start, stop, fields);
+                    inventory.addProduct(createProduct(count, fields), parseInt("stock", fields[5]));
+                    batch.loaded.incrementAndGet();
+                } catch (RuntimeException e) {
+                    batch.reject("line", line, e.getMessage());
+                }
+            }
+            start = end + 1;
+        }
+    }
+
+    // Split a line at commas into fields; returns the field count (more than fields.length is an error)
+    private static int split(byte[] data, int start, int stop, String[] fields) {
+        int count = 0;
+        int fieldStart = start;
+        for (int i = start; i <= stop; i++) {
+            if (i == stop || data[i] == ',') {
+                if (count == fields.length) {
+                    throw new InvalidProductDataException("Too many fields", "row", null);
+                }
+                fields[count++] = new String(data, fieldStart, i - fieldStart, StandardCharsets.UTF_8).trim();
+                fieldStart = i + 1;
+            }
+        }
+        return count;
+    }
+
+    private Product createProduct(int count, String[] fields) {
+        byte type = typeCode(fields[0]);
+        int expected = type == ELECTRONICS ? 8 : 9;
+        if (count != expected) {
+            throw new InvalidProductDataException("Expected " + expected + " fields for " + fields[0] + " but found " + count,
+                                                  "row", String.valueOf(count));
+        }
+        String productId = fields[1];
+        String name = fields[2];
+        double basePrice = parseDouble("basePrice", fields[3]);
+        String category = fields[4];
+        switch (type) {
+            case ELECTRONICS:
+                return new Electronics(productId, name, basePrice, category,
+                                       parseInt("warrantyPeriod", fields[6]), parseDouble("powerConsumption", fields[7]));
+            case CLOTHING:
+                return new Clothing(productId, name, basePrice, category, fields[6], fields[7], fields[8]);
+            default:
+                return new Books(productId, name, basePrice, category, fields[6], shared(fields[7]), fields[8]);
+        }
+    }
+
+    // ---------------------------------------------------------------- binary
+
+    /**
+     * Rewrite a CSV catalogue in the binary format, which loads without text splitting.
+     * Rows are checked for shape and numbers only; product rules are applied when loading.
+     * @return the number of rows written
+     */
+    static long convertCsvToBinary(Path csv, Path binary) throws IOException {
+        long rows = 0;
+        int lineNumber = 0;
+        try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+             FileChannel out = FileChannel.open(binary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(4).putInt(BINARY_MAGIC);
+            header.flip();
+            writeFully(out, header);
+
+            BlockWriter block = new BlockWriter();
+            String line;
+            String[] fields = new String[9];
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+                try {
+                    int count = split(bytes, 0, bytes.length, fields);
+                    byte type = typeCode(fields[0]);
+                    if (count != (type == ELECTRONICS ? 8 : 9)) {
+                        throw new InvalidProductDataException("Expected " + (type == ELECTRONICS ? 8 : 9)
+                                                              + " fields but found " + count, "row", line);
+                    }
+                    int mark = block.buffer.position();
+                    try {
+                        block.putRow(type, fields);
+                    } catch (BufferOverflowException full) {
+                        block.buffer.position(mark);
+                        if (block.rows == 0) {
+                            throw rowTooLong(line);
+                        }
+                        block.flush(out);
+                        try {
+                            block.putRow(type, fields);
+                        } catch (BufferOverflowException tooLong) {
+                            throw rowTooLong(line); // does not fit even in an empty block
+                        }
+                    }
+                    rows++;
+                } catch (RuntimeException e) {
+                    throw new IOException(csv + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+            if (block.rows > 0) {
+                block.flush(out);
+            }
+        }
+        return rows;
+    }
+
+    private static InvalidProductDataException rowTooLong(String line) {
+        return new InvalidProductDataException("Row too long for a binary catalogue block (max " + MAX_BLOCK_BYTES
+                                               + " bytes)", "row", line.substring(0, Math.min(line.length(), 40)) + "...");
+    }
+
+    // One block being written, and the shared values already spelled out in it
+    private static final class BlockWriter {
+        final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES);
+        final Map<String, Integer> dictionary = new HashMap<>();
+        int rows;
+
+        BlockWriter() {
+            buffer.position(8); // byteLength and rowCount are filled in on flush
+        }
+
+        // Throws BufferOverflowException, leaving a partial row, when the block is full
+        void putRow(byte type, String[] fields) {
+            buffer.put(type);
+            putText(fields[1]);
+            putText(fields[2]);
+            buffer.putDouble(parseDouble("basePrice", fields[3]));
+            putShared(fields[4]);
+            putVarint(zigZag(parseInt("stock", fields[5])));
+            if (type == ELECTRONICS) {
+                putVarint(zigZag(parseInt("warrantyPeriod", fields[6])));
+                buffer.putDouble(parseDouble("powerConsumption", fields[7]));
+            } else if (type == CLOTHING) {
+                putShared(fields[6]);
+                putShared(fields[7]);
+                putShared(fields[8]);
+            } else {
+                putText(fields[6]);
+                putShared(fields[7]);
+                putText(fields[8]);
+            }
+            rows++;
+        }
+
+        void flush(FileChannel out) throws IOException {
+            buffer.putInt(0, buffer.position() - 8).putInt(4, rows);
+            buffer.flip();
+            writeFully(out, buffer);
+            buffer.clear();
+            buffer.position(8);
+            dictionary.clear();
+            rows = 0;
+        }
+
+        private void putText(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putVarint(bytes.length);
+            buffer.put(bytes);
+        }
+
+        private void putShared(String value) {
+            Integer reference = dictionary.get(value);
+            if (reference != null) {
+                putVarint(reference << 1 | 1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putVarint(bytes.length << 1);
+            buffer.put(bytes);
+            dictionary.put(value, dictionary.size());
+        }
+
+        private void putVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) (value & 0x7F | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        private static int zigZag(int value) {
+            return value << 1 ^ value >> 31;
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private void readBinary(FileChannel channel, Batch batch) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8);
+        header.limit(4);
+        if (!readFully(channel, header) || header.getInt(0) != BINARY_MAGIC) {
+            throw new IOException("Not a binary catalogue file");
+        }
+        long row = 1;
+        while (true) {
+            header.clear();
+            if (!readFully(channel, header)) {
+                return;
+            }
+            int length = header.getInt(0);
+            int rowCount = header.getInt(4);
+            if (length < 0 || length > MAX_BLOCK_BYTES || rowCount < 0) {
+                throw new IOException("Corrupt block header at row " + row);
+            }
+            ByteBuffer block = ByteBuffer.allocate(length);
+            if (!readFully(channel, block)) {
+                throw new IOException("Truncated block at row " + row);
+            }
+            block.flip();
+            long firstRow = row;
+            batch.submit(() -> loadBinaryRows(block, rowCount, firstRow, batch));
+            row += rowCount;
+        }
+    }
+
+    // Fill the buffer; false at a clean end of file, IOException if the file ends mid-buffer
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        boolean empty = buffer.position() == 0;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (empty && buffer.position() == 0) {
+                    return false;
+                }
+                throw new IOException("Unexpected end of catalogue file");
+            }
+        }
+        return true;
+    }
+
+    private void loadBinaryRows(ByteBuffer block, int rowCount, long firstRow, Batch batch) {
+        List<String> dictionary = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) {
+            try {
+                byte type = block.get();
+                String productId = getText(block);
+                String name = getText(block);
+                double basePrice = block.getDouble();
+                String category = getShared(block, dictionary);
+                int stock = unZigZag(getVarint(block));
+                try {
+                    Product product;
+                    switch (type) {
+                        case ELECTRONICS:
+                            product = new Electronics(productId, name, basePrice, category,
+                                                      unZigZag(getVarint(block)), block.getDouble());
+                            break;
+                        case CLOTHING:
+                            product = new Clothing(productId, name, basePrice, category, getShared(block, dictionary),
+                                                   getShared(block, dictionary), getShared(block, dictionary));
+                            break;
+                        case BOOKS:
+                            product = new Books(productId, name, basePrice, category,
+                                                getText(block), shared(getShared(block, dictionary)), getText(block));
+                            break;
+                        default:
+                            batch.reject("row", firstRow + i, "Unknown product type code " + type);
+                            batch.rejected.addAndGet(rowCount - i - 1); // row boundaries are lost
+                            return;
+                    }
+                    inventory.addProduct(product, stock);
+                    batch.loaded.incrementAndGet();
+                } catch (InvalidProductDataException e) {
+                    // The row's fields were all read before validation failed, so the next row starts cleanly
+                    batch.reject("row", firstRow + i, e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                batch.reject("row", firstRow + i, "Corrupt row: " + e);
+                batch.rejected.addAndGet(rowCount - i - 1);
+                return;
+            }
+        }
+    }
+
+    private static String getText(ByteBuffer block) {
+        return getUtf8(block, getVarint(block));
+    }
+
+    private String getShared(ByteBuffer block, List<String> dictionary) {
+        int tag = getVarint(block);
+        if ((tag & 1) != 0) {
+            return dictionary.get(tag >>> 1);
+        }
+        String value = getUtf8(block, tag >>> 1);
+        dictionary.add(value);
+        return value;
+    }
+
+    private static String getUtf8(ByteBuffer block, int length) {
+        if (length > block.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(block.array(), block.arrayOffset() + block.position(), length, StandardCharsets.UTF_8);
+        block.position(block.position() + length);
+        return value;
+    }
+
+    private static int getVarint(ByteBuffer block) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = block.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Varint longer than 5 bytes");
+    }
+
+    private static int unZigZag(int value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    // ---------------------------------------------------------------- shared
+
+    private static byte typeCode(String type) {
+        switch (type) {
+            case "Electronics": return ELECTRONICS;
+            case "Clothing": return CLOTHING;
+            case "Books": return BOOKS;
+            default: throw new InvalidProductDataException("Unknown product type", "type", type);
+        }
+    }
+
+    // One instance per distinct value, so millions of books share a handful of publisher strings
+    private String shared(String value) {
+        String existing = strings.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    private static int parseInt(String field, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidProductDataException("Invalid " + field, field, value);
+        }
+    }
+
+    private static double parseDouble(String field, String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidProductDataException("Invalid " + field, field, value);
+        }
+    }
+
+    private static int indexOf(byte[] data, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private static int lastIndexOf(byte[] data, byte value, int to) {
+        for (int i = to - 1; i >= 0; i--) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long count(byte[] data, byte value, int to) {
+        long count = 0;
+        for (int i = 0; i < to; i++) {
+            if (data[i] == value) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,66 @@
+package Assessment3_DennisMusyimi;
+
+// Clothing Class
+class Clothing extends Product {
+    private static final String[] SIZES = {"XS", "S", "M", "L", "XL", "XXL", "XXXL"};
+    // Distinct materials and colors, shared by every garment; codes fit in a short
+    static final AttributeDictionary MATERIALS = new AttributeDictionary("material", 1 << 16);
+    static final AttributeDictionary COLORS = new AttributeDictionary("color", 1 << 16);
+
+    private byte sizeCode;      // index in SIZES
+    private short materialCode; // in MATERIALS, unsigned
+    private short colorCode;    // in COLORS, unsigned
+
+    public Clothing(String productId, String name, double basePrice, String category,
+                   String size, String material, String color) {
+        super(productId, name, basePrice, category);
+        int sizeIndex = validateSize(size);
+        validateMaterial(material);
+        validateColor(color);
+
+        this.sizeCode = (byte) sizeIndex;
+        this.materialCode = (short) MATERIALS.encode(material.trim());
+        this.colorCode = (short) COLORS.encode(color.trim());
+    }
+
+    @Override
+    public String getProductType() {
+        return "Clothing";
+    }
+
+    @Override
+    protected void displaySpecificInfo() {
+        System.out.printf("║ %-20s: %-20s ║%n", "Size", getSize());
+        System.out.printf("║ %-20s: %-20s ║%n", "Material", getMaterial());
+        System.out.printf("║ %-20s: %-20s ║%n", "Color", getColor());
+    }
+
+    // Returns the index of the size in SIZES
+    private int validateSize(String size) {
+        if (size == null || size.trim().isEmpty()) {
+            throw new InvalidProductDataException("Size cannot be null or empty", "size", size);
+        }
+        for (int i = 0; i < SIZES.length; i++) {
+            if (SIZES[i].equalsIgnoreCase(size.trim())) {
+                return i;
+            }
+        }
+        throw new InvalidProductDataException("Invalid size. Must be XS, S, M, L, XL, XXL, or XXXL", "size", size);
+    }
+
+    private void validateMaterial(String material) {
+        if (material == null || material.trim().isEmpty()) {
+            throw new InvalidProductDataException("Material cannot be null or empty", "material", material);
+        }
+    }
+
+    private void validateColor(String color) {
+        if (color == null || color.trim().isEmpty()) {
+            throw new InvalidProductDataException("Color cannot be null or empty", "color", color);
+        }
+    }
+
+    public String getSize() { return SIZES[sizeCode]; }
+    public String getMaterial() { return MATERIALS.decode(Short.toUnsignedInt(materialCode)); }
+    public String getColor() { return COLORS.decode(Short.toUnsignedInt(colorCode)); }
+}
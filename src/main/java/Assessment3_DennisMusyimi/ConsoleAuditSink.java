@@ -0,0 +1,31 @@
+package Assessment3_DennisMusyimi;
+
+/**
+ * Prints audit events to System.out in the original BankAccount wording.
+ * Synchronous - every posting waits for the console - so it suits demos, not load.
+ */
+final class ConsoleAuditSink implements AuditSink {
+    static final ConsoleAuditSink INSTANCE = new ConsoleAuditSink();
+
+    private ConsoleAuditSink() {
+    }
+
+    @Override
+    public void record(Kind kind, String account, String target, long amountCents, long balanceCents, long targetBalanceCents) {
+        switch (kind) {
+            case DEPOSIT:
+                System.out.printf("✓ Successfully deposited $%.2f to account %s%n", Money.toDouble(amountCents), account);
+                System.out.printf("  New balance: $%.2f%n", Money.toDouble(balanceCents));
+                break;
+            case WITHDRAWAL:
+                System.out.printf("✓ Successfully withdrew $%.2f from account %s%n", Money.toDouble(amountCents), account);
+                System.out.printf("  New balance: $%.2f%n", Money.toDouble(balanceCents));
+                break;
+            default:
+                System.out.printf("✓ Successfully transferred $%.2f from %s to %s%n",
+                                 Money.toDouble(amountCents), account, target);
+                System.out.printf("  Source balance: $%.2f, Destination balance: $%.2f%n",
+                                 Money.toDouble(balanceCents), Money.toDouble(targetBalanceCents));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package Assessment3_DennisMusyimi;
+
+import java.time.LocalDate;
+
+/**
+ * One discount rule: products of a type and category whose base price is in
+ * (minPrice, maxPrice] get rate x base price off while the date is in [from, to].
+ * "*" matches any type or category; a null date leaves that side of the window open.
+ */
+final class DiscountRule {
+    static final String ANY = "*";
+
+    private final String productType;
+    private final String category;
+    private final double minPrice; // exclusive
+    private final double maxPrice; // inclusive
+    private final double rate;
+    private final LocalDate from;
+    private final LocalDate to;
+
+    DiscountRule(String productType, String category, double minPrice, double maxPrice, double rate,
+                 LocalDate from, LocalDate to) {
+        if (!(minPrice < maxPrice) || Double.isNaN(minPrice)) {
+            throw new InvalidProductDataException("Discount price band must be non-empty", "priceBand", minPrice + ".." + maxPrice);
+        }
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new InvalidProductDataException("Discount rate must be between 0 and 1", "rate", String.valueOf(rate));
+        }
+        this.productType = productType;
+        this.category = category;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.rate = rate;
+        this.from = from;
+        this.to = to;
+    }
+
+    static DiscountRule band(String productType, double minPrice, double maxPrice, double rate) {
+        return new DiscountRule(productType, ANY, minPrice, maxPrice, rate, null, null);
+    }
+
+    boolean isActiveOn(LocalDate date) {
+        return (from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to));
+    }
+
+    boolean appliesTo(String type, String productCategory) {
+        return (productType.equals(ANY) || productType.equalsIgnoreCase(type))
+            && (category.equals(ANY) || category.equalsIgnoreCase(productCategory));
+    }
+
+    // Rules naming a category beat type-wide ones, which beat rules for any type
+    int specificity() {
+        return (category.equals(ANY) ? 0 : 2) + (productType.equals(ANY) ? 0 : 1);
+    }
+
+    boolean covers(double low, double high) {
+        return minPrice <= low && high <= maxPrice;
+    }
+
+    String getProductType() { return productType; }
+    String getCategory() { return category; }
+    double getMinPrice() { return minPrice; }
+    double getMaxPrice() { return maxPrice; }
+    double getRate() { return rate; }
+    LocalDate getFrom() { return from; }
+    LocalDate getTo() { return to; }
+}
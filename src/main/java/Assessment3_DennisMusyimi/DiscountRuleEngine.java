@@ -0,0 +1,213 @@
+package Assessment3_DennisMusyimi;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Discount rules compiled for one date. For every (product type, category)
+ * the rules active on that date are flattened into a sorted band table, so a
+ * product's discount rate is one binary search over a few price bounds.
+ * Products resolve their table once per installed engine.
+ *
+ * Rule file: one rule per line, '#' starts a comment,
+ *   type,category,minPrice,maxPrice,rate[,from[,to]]
+ * e.g. "Electronics,*,500,*,0.10" or "Clothing,Apparel,0,*,0.25,2024-11-29,2024-12-02".
+ * A price of '*' is an open end (0 or unbounded), dates are ISO yyyy-mm-dd.
+ * When bands overlap the more specific rule wins, then the one listed first.
+ * An engine compiled for today is recompiled for the new date on the first
+ * lookup after midnight, so date windows open and close without a restart.
+ */
+final class DiscountRuleEngine {
+    // The thresholds Electronics, Clothing and Books used to hard-code
+    static final List<DiscountRule> DEFAULT_RULES = Collections.unmodifiableList(Arrays.asList(
+        DiscountRule.band("Electronics", 500, Double.POSITIVE_INFINITY, 0.10),
+        DiscountRule.band("Electronics", 200, 500, 0.05),
+        DiscountRule.band("Clothing", 100, Double.POSITIVE_INFINITY, 0.15),
+        DiscountRule.band("Clothing", 50, 100, 0.08),
+        DiscountRule.band("Books", 30, Double.POSITIVE_INFINITY, 0.12),
+        DiscountRule.band("Books", 15, 30, 0.06)
+    ));
+
+    private static volatile DiscountRuleEngine active = new DiscountRuleEngine(DEFAULT_RULES, LocalDate.now());
+
+    private final List<DiscountRule> rules;
+    private final List<DiscountRule> activeRules; // active on date, most specific first
+    private final LocalDate date;
+    private final long expiresAtMillis; // next midnight for today's engine, never for any other date
+    private final Map<String, Bands> tables = new ConcurrentHashMap<>();
+
+    DiscountRuleEngine(List<DiscountRule> rules, LocalDate date) {
+        List<DiscountRule> activeRules = new ArrayList<>();
+        for (DiscountRule rule : rules) {
+            if (rule.isActiveOn(date)) {
+                activeRules.add(rule);
+            }
+        }
+        // Stable sort: specificity first, file order within the same specificity
+        activeRules.sort(Comparator.comparingInt(DiscountRule::specificity).reversed());
+        this.rules = rules;
+        this.date = date;
+        this.activeRules = activeRules;
+        ZoneId zone = ZoneId.systemDefault();
+        this.expiresAtMillis = date.equals(LocalDate.now(zone))
+            ? date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli()
+            : Long.MAX_VALUE;
+    }
+
+    /**
+     * Load rules from a file and compile them for the given date
+     */
+    static DiscountRuleEngine load(Path file, LocalDate date) throws IOException {
+        List<DiscountRule> rules = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            String content = (comment >= 0 ? line.substring(0, comment) : line).trim();
+            if (content.isEmpty()) {
+                continue;
+            }
+            try {
+                rules.add(parse(content));
+            } catch (RuntimeException e) {
+                throw new IOException(file + ":" + lineNumber + ": invalid discount rule '" + content + "': " + e.getMessage());
+            }
+        }
+        return new DiscountRuleEngine(rules, date);
+    }
+
+    private static DiscountRule parse(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length < 5 || fields.length > 7) {
+            throw new IllegalArgumentException("expected 5 to 7 fields");
+        }
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = fields[i].trim();
+        }
+        try {
+            return new DiscountRule(fields[0], fields[1],
+                fields[2].equals(DiscountRule.ANY) ? 0 : Double.parseDouble(fields[2]),
+                fields[3].equals(DiscountRule.ANY) ? Double.POSITIVE_INFINITY : Double.parseDouble(fields[3]),
+                Double.parseDouble(fields[4]),
+                fields.length > 5 && !fields[5].isEmpty() ? LocalDate.parse(fields[5]) : null,
+                fields.length > 6 && !fields[6].isEmpty() ? LocalDate.parse(fields[6]) : null);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    static DiscountRuleEngine getActive() {
+        DiscountRuleEngine engine = active;
+        if (System.currentTimeMillis() >= engine.expiresAtMillis) {
+            engine = rollOver();
+        }
+        return engine;
+    }
+
+    /**
+     * Recompile today's engine once the day it was compiled for has passed
+     */
+    static void checkDate() {
+        if (System.currentTimeMillis() >= active.expiresAtMillis) {
+            rollOver();
+        }
+    }
+
+    private static synchronized DiscountRuleEngine rollOver() {
+        DiscountRuleEngine engine = active;
+        if (System.currentTimeMillis() >= engine.expiresAtMillis) {
+            engine = engine.forDate(LocalDate.now());
+            install(engine);
+        }
+        return engine;
+    }
+
+    /**
+     * Make this rule set the one every product prices with; cached prices are invalidated
+     */
+    static synchronized void install(DiscountRuleEngine engine) {
+        active = engine;
+        Product.invalidatePrices();
+    }
+
+    /**
+     * The same rules compiled for another date (e.g. at midnight, as date windows open and close)
+     */
+    DiscountRuleEngine forDate(LocalDate newDate) {
+        return new DiscountRuleEngine(rules, newDate);
+    }
+
+    /**
+     * The compiled band table for a product type and category
+     */
+    Bands bandsFor(String productType, String category) {
+        return tables.computeIfAbsent(productType + '\u0000' + category, key -> compile(productType, category));
+    }
+
+    private Bands compile(String productType, String category) {
+        List<DiscountRule> candidates = new ArrayList<>();
+        TreeSet<Double> bounds = new TreeSet<>();
+        for (DiscountRule rule : activeRules) {
+            if (rule.appliesTo(productType, category)) {
+                candidates.add(rule);
+                bounds.add(rule.getMinPrice());
+                bounds.add(rule.getMaxPrice());
+            }
+        }
+
+        // One elementary band between each pair of neighbouring bounds, taken by the first covering rule
+        double[] edges = new double[bounds.size()];
+        int n = 0;
+        for (double bound : bounds) {
+            edges[n++] = bound;
+        }
+        double[] rates = new double[Math.max(0, n - 1)];
+        for (int band = 0; band < rates.length; band++) {
+            for (DiscountRule rule : candidates) {
+                if (rule.covers(edges[band], edges[band + 1])) {
+                    rates[band] = rule.getRate();
+                    break;
+                }
+            }
+        }
+        return new Bands(this, edges, rates);
+    }
+
+    LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Sorted price bounds and the rate for each band (bounds[i], bounds[i + 1]]
+     */
+    static final class Bands {
+        final DiscountRuleEngine engine;
+        private final double[] bounds;
+        private final double[] rates;
+
+        private Bands(DiscountRuleEngine engine, double[] bounds, double[] rates) {
+            this.engine = engine;
+            this.bounds = bounds;
+            this.rates = rates;
+        }
+
+        double rateFor(double price) {
+            int index = Arrays.binarySearch(bounds, price);
+            int band = index >= 0 ? index - 1 : -index - 2; // a price on a bound belongs to the band below it
+            return band >= 0 && band < rates.length ? rates[band] : 0.0;
+        }
+    }
+}
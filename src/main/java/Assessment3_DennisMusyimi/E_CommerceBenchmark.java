@@ -0,0 +1,1147 @@
+package Assessment3_DennisMusyimi;
+
+import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import javax.management.ObjectName;
+
+/**
+ * E_CommerceBenchmark - throughput measurements for the inventory code.
+ * Sizes can be tuned with system properties, e.g. -Dbench.flash.threads=2000
+ */
+public class E_CommerceBenchmark {
+    private static final int HOT_SKUS = Integer.getInteger("bench.flash.skus", 4);
+    private static final int FLASH_THREADS = Integer.getInteger("bench.flash.threads", 2000);
+    private static final int PURCHASES_PER_THREAD = Integer.getInteger("bench.flash.ops", 5_000);
+    private static final String[] SKU_IDS = new String[HOT_SKUS];
+
+    // Results are published here so the JIT cannot discard the measured work
+    private static volatile Object sink;
+
+    static {
+        for (int sku = 0; sku < HOT_SKUS; sku++) {
+            SKU_IDS[sku] = "HOT" + sku;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("═══════════════════════════════════════════════════════════════");
+        System.out.println("              E-COMMERCE SYSTEM BENCHMARK");
+        System.out.println("═══════════════════════════════════════════════════════════════\n");
+
+        benchmarkFlashSale();
+        benchmarkCheckout();
+        benchmarkReservations();
+        benchmarkStockUpdates();
+        benchmarkOrderPricing();
+        benchmarkDiscountRules();
+        benchmarkCatalogueQueries();
+        benchmarkCatalogueLoad();
+        benchmarkIsbnValidation();
+        benchmarkStockEvents();
+        benchmarkLowStockAlerts();
+        benchmarkAttributeFootprint();
+        benchmarkInventoryReport();
+        benchmarkCatalogueFile();
+    }
+
+    private static void benchmarkFlashSale() throws Exception {
+        System.out.println("1. FLASH SALE (" + HOT_SKUS + " hot SKUs)");
+        System.out.println("─────────────────────────────────────────────────────────────");
+
+        // Throughput: stock never runs out, every purchase succeeds
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        double singleThreadRate = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            InventoryManager inventory = createHotInventory(Integer.MAX_VALUE);
+            double purchasesPerSecond = runFlashSale(inventory, threads, PURCHASES_PER_THREAD * 20, new LongAdder());
+            if (threads == 1) {
+                singleThreadRate = purchasesPerSecond;
+            }
+            System.out.printf("  %4d thread(s): %,14.0f purchases/s  (scaling x%.2f)%n",
+                             threads, purchasesPerSecond, purchasesPerSecond / singleThreadRate);
+        }
+
+        // Oversell check: thousands of buyers want more than there is
+        int stockPerSku = FLASH_THREADS * PURCHASES_PER_THREAD / HOT_SKUS / 2;
+        InventoryManager inventory = createHotInventory(stockPerSku);
+        LongAdder sold = new LongAdder();
+        double purchasesPerSecond = runFlashSale(inventory, FLASH_THREADS, PURCHASES_PER_THREAD, sold);
+        long remaining = 0;
+        for (int sku = 0; sku < HOT_SKUS; sku++) {
+            remaining += inventory.getStockLevel(skuId(sku));
+        }
+        long stocked = (long) stockPerSku * HOT_SKUS;
+        System.out.printf("  %4d threads, demand 2x stock: %,14.0f attempts/s%n", FLASH_THREADS, purchasesPerSecond);
+        System.out.printf("  Stocked %,d, sold %,d, remaining %,d -> %s%n", stocked, sold.sum(), remaining,
+                         sold.sum() + remaining == stocked && remaining >= 0 ? "NO OVERSELL" : "OVERSOLD");
+        System.out.println("─────────────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkCheckout() throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int catalogue = Integer.getInteger("bench.checkout.products", 10_000);
+        System.out.println("2. MULTI-LINE CHECKOUT (" + threads + " threads, " + catalogue + " products)");
+        System.out.println("─────────────────────────────────────────────────────────────");
+
+        InventoryManager inventory = new InventoryManager(false);
+        String[] productIds = new String[catalogue];
+        for (int i = 0; i < catalogue; i++) {
+            productIds[i] = String.format("PRD%06d", i);
+            inventory.addProduct(new Clothing(productIds[i], "Item " + i, 10.0 + i % 200, "Apparel", "M", "Cotton", "Blue"),
+                                 Integer.MAX_VALUE / 2);
+        }
+
+        for (int lines : new int[] { 1, 10, 100 }) {
+            int ordersPerThread = 2_000_000 / lines;
+            double ordersPerSecond = runCheckouts(inventory, productIds, threads, ordersPerThread, lines);
+            System.out.printf("  %3d-line carts: %,12.0f orders/s  (%,.0f lines/s)%n",
+                             lines, ordersPerSecond, ordersPerSecond * lines);
+        }
+        System.out.println("─────────────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkReservations() throws Exception {
+        int holds = Integer.getInteger("bench.reservations", 2_000_000);
+        int products = 1000;
+        System.out.println("3. TIMED RESERVATIONS (" + holds + " holds of 1-30 minutes)");
+        System.out.println("─────────────────────────────────────────────────────────────");
+
+        InventoryManager inventory = new InventoryManager(false);
+        String[] productIds = new String[products];
+        for (int i = 0; i < products; i++) {
+            productIds[i] = String.format("RSV%04d", i);
+            inventory.addProduct(new Books(productIds[i], "Title " + i, 19.99, "Fiction", "Author", "Publisher", "0-306-40615-2"),
+                                 holds);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StockReservation[] reservations = new StockReservation[holds];
+        long begin = System.nanoTime();
+        for (int i = 0; i < holds; i++) {
+            reservations[i] = inventory.reserveStock(productIds[i % products], 1, Duration.ofMinutes(1 + random.nextInt(30)));
+        }
+        long reserveNanos = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        int cancelled = 0;
+        for (int i = 0; i < holds; i += 10) {
+            if (inventory.cancelReservation(reservations[i])) {
+                cancelled++;
+            }
+        }
+        long cancelNanos = System.nanoTime() - begin;
+
+        // Jump the clock past every hold: the wheel walks the ticks in between and expires the rest
+        begin = System.nanoTime();
+        int expired = inventory.expireReservations(System.currentTimeMillis() + Duration.ofMinutes(31).toMillis());
+        long expireNanos = System.nanoTime() - begin;
+
+        long available = 0;
+        long reserved = 0;
+        for (String productId : productIds) {
+            available += inventory.getStockLevel(productId);
+            reserved += inventory.getReservedStock(productId);
+        }
+        System.out.printf("  Reserve: %,12.0f holds/s%n", holds / (reserveNanos / 1e9));
+        System.out.printf("  Cancel:  %,12.0f holds/s (%,d cancelled)%n", cancelled / (cancelNanos / 1e9), cancelled);
+        System.out.printf("  Expire:  %,12.0f holds/s (%,d expired)%n", expired / (expireNanos / 1e9), expired);
+        System.out.printf("  All stock back: %s (available %,d of %,d, reserved %,d)%n",
+                         available == (long) holds * products && reserved == 0 ? "YES" : "NO",
+                         available, (long) holds * products, reserved);
+        System.out.println("─────────────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkStockUpdates() throws Exception {
+        int skus = Integer.getInteger("bench.skus", 1_000_000);
+        int iterations = 10_000_000;
+        System.out.println("4. PURCHASE / RESTOCK ON " + skus + " SKUs (single store, unboxed counters)");
+        System.out.println("─────────────────────────────────────────────────────────────");
+
+        InventoryManager inventory = new InventoryManager(false);
+        String[] productIds = new String[skus];
+        for (int i = 0; i < skus; i++) {
+            productIds[i] = "SKU" + i;
+            inventory.addProduct(new Electronics(productIds[i], "Gadget " + i, 49.99, "Gadgets", 12, 5.0), 1_000);
+        }
+
+        com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int round = 0; round < 2; round++) { // first round is JIT warm-up
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+            long begin = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                String productId = productIds[random.nextInt(skus)];
+                if ((i & 1) == 0) {
+                    inventory.purchaseProduct(productId, 1);
+                } else {
+                    inventory.updateStock(productId, 1);
+                }
+            }
+            long elapsed = System.nanoTime() - begin;
+            long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            if (round == 1) {
+                System.out.printf("  1 thread: %,14.0f ops/s  %7.2f ns/op  %7.2f bytes/op%n",
+                                 iterations / (elapsed / 1e9), (double) elapsed / iterations, (double) allocated / iterations);
+            }
+        }
+        System.out.println("  (purchaseProduct and updateStock alternate on random SKUs)");
+        System.out.println("─────────────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkOrderPricing() throws Exception {
+        int orderLines = Integer.getInteger("bench.order.lines", 5_000_000);
+        int catalogue = 100_000;
+        System.out.println("5. PRICING A " + orderLines + "-LINE ORDER FILE (" + catalogue + " products)");
+        System.out.println("─────────────────────────────────────────────────────────────");
+
+        InventoryManager inventory = new InventoryManager(false);
+        Product[] products = new Product[catalogue];
+        for (int i = 0; i < catalogue; i++) {
+            String productId = "PRC" + i;
+            switch (i % 3) {
+                case 0:
+                    products[i] = new Electronics(productId, "Device " + i, 100 + i % 900, "Devices", 12, 20.0);
+                    break;
+                case 1:
+                    products[i] = new Clothing(productId, "Garment " + i, 20 + i % 150, "Apparel", "L", "Wool", "Grey");
+                    break;
+                default:
+                    products[i] = new Books(productId, "Volume " + i, 5 + i % 60, "Reference", "Editor", "Press", "0-306-40615-2");
+            }
+            inventory.addProduct(products[i], 1_000);
+        }
+
+        // Write the order file, then load it into (product, quantity) columns
+        Path orderFile = Files.createTempFile("orders", ".csv");
+        try {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            try (BufferedWriter out = Files.newBufferedWriter(orderFile)) {
+                for (int i = 0; i < orderLines; i++) {
+                    out.write("PRC" + random.nextInt(catalogue) + "," + (1 + random.nextInt(5)));
+                    out.newLine();
+                }
+            }
+            Product[] lineProducts = new Product[orderLines];
+            int[] lineQuantities = new int[orderLines];
+            long begin = System.nanoTime();
+            try (BufferedReader in = Files.newBufferedReader(orderFile)) {
+                String line;
+                int i = 0;
+                while ((line = in.readLine()) != null) {
+                    int comma = line.indexOf(',');
+                    lineProducts[i] = inventory.getProduct(line.substring(0, comma));
+                    lineQuantities[i++] = Integer.parseInt(line.substring(comma + 1));
+                }
+            }
+            System.out.printf("  Load + resolve:        %8.1f ms%n", (System.nanoTime() - begin) / 1e6);
+
+            for (int round = 0; round < 2; round++) { // first round is JIT warm-up
+                begin = System.nanoTime();
+                double recomputed = 0;
+                for (int i = 0; i < orderLines; i++) {
+                    recomputed += lineProducts[i].computeFinalPrice() * lineQuantities[i];
+                }
+                long recomputeNanos = System.nanoTime() - begin;
+
+                begin = System.nanoTime();
+                double cached = 0;
+                for (int i = 0; i < orderLines; i++) {
+                    cached += lineProducts[i].applyTax() * lineQuantities[i];
+                }
+                long cachedNanos = System.nanoTime() - begin;
+                sink = recomputed + cached;
+
+                if (round == 1) {
+                    System.out.printf("  Recompute every line:  %8.1f ms (total $%,.2f)%n", recomputeNanos / 1e6, recomputed);
+                    System.out.printf("  Price cache:           %8.1f ms (total $%,.2f)  x%.1f faster%n",
+                                     cachedNanos / 1e6, cached, (double) recomputeNanos / cachedNanos);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(orderFile);
+        }
+
+        long begin = System.nanoTime();
+        inventory.repriceAll(product -> product.getBasePrice() * 1.05);
+        System.out.printf("  Parallel repriceAll:   %8.1f ms for %,d products%n", (System.nanoTime() - begin) / 1e6, catalogue);
+        System.out.println("─────────────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkDiscountRules() throws Exception {
+        int catalogue = 100_000;
+        int lookups = 50_000_000;
+        System.out.println("6. DISCOUNT EVALUATION (subclass thresholds vs compiled rule table)");
+        System.out.println("─────────────────────────────────────────────────────────────");
+
+        // A rule file with the standard bands plus a dated seasonal promotion
+        Path rulesFile = Files.createTempFile("discount-rules", ".csv");
+        DiscountRuleEngine engine;
+        try {
+            List<String> lines = new ArrayList<>();
+            lines.add("# type,category,minPrice,maxPrice,rate[,from[,to]]");
+            for (DiscountRule rule : DiscountRuleEngine.DEFAULT_RULES) {
+                lines.add(rule.getProductType() + ",*," + rule.getMinPrice() + ","
+                          + (Double.isInfinite(rule.getMaxPrice()) ? "*" : rule.getMaxPrice()) + "," + rule.getRate());
+            }
+            lines.add("Clothing,Outerwear,0,*,0.25,2000-01-01,2099-12-31");
+            Files.write(rulesFile, lines);
+            long begin = System.nanoTime();
+            engine = DiscountRuleEngine.load(rulesFile, LocalDate.now());
+            System.out.printf("  Loaded %d rules in %.2f ms%n", lines.size() - 1, (System.nanoTime() - begin) / 1e6);
+        } finally {
+            Files.deleteIfExists(rulesFile);
+        }
+
+        String[] categories = { "Apparel", "Outerwear", "Computers", "Fiction" };
+        LegacyDiscount[] legacyByType = { new LegacyElectronics(), new LegacyClothing(), new LegacyBooks() };
+        String[] typeNames = { "Electronics", "Clothing", "Books" };
+        LegacyDiscount[] legacy = new LegacyDiscount[catalogue];
+        DiscountRuleEngine.Bands[] bands = new DiscountRuleEngine.Bands[catalogue];
+        double[] prices = new double[catalogue];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < catalogue; i++) {
+            int type = random.nextInt(3);
+            legacy[i] = legacyByType[type];
+            bands[i] = engine.bandsFor(typeNames[type], categories[random.nextInt(categories.length)]);
+            prices[i] = 1 + random.nextInt(1000);
+        }
+
+        for (int round = 0; round < 2; round++) { // first round is JIT warm-up
+            long begin = System.nanoTime();
+            double legacyTotal = 0;
+            for (int i = 0, p = 0; i < lookups; i++, p = p + 1 == catalogue ? 0 : p + 1) {
+                legacyTotal += legacy[p].rate(prices[p]);
+            }
+            long legacyNanos = System.nanoTime() - begin;
+
+            begin = System.nanoTime();
+            double tableTotal = 0;
+            for (int i = 0, p = 0; i < lookups; i++, p = p + 1 == catalogue ? 0 : p + 1) {
+                tableTotal += bands[p].rateFor(prices[p]);
+            }
+            long tableNanos = System.nanoTime() - begin;
+            sink = legacyTotal + tableTotal;
+
+            if (round == 1) {
+                System.out.printf("  Subclass dispatch:  %6.2f ns/lookup%n", (double) legacyNanos / lookups);
+                System.out.printf("  Band table:         %6.2f ns/lookup (includes the Outerwear promotion)%n",
+                                 (double) tableNanos / lookups);
+            }
+        }
+        System.out.println("─────────────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkCatalogueQueries() throws Exception {
+        int catalogue = Integer.getInteger("bench.catalogue.products", 1_000_000);
+        int queries = 2_000;
+        System.out.println("7. CATALOGUE QUERIES (" + catalogue + " products, Electronics $200-$500 in stock)");
+        System.out.println("─────────────────────────────────────────────────────────────");
+
+        String[] categories = { "Electronics", "Computers", "Audio", "Apparel", "Outerwear", "Fiction", "Reference", "Toys" };
+        InventoryManager inventory = new InventoryManager(false);
+        Product[] products = new Product[catalogue];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long begin = System.nanoTime();
+        for (int i = 0; i < catalogue; i++) {
+            String productId = "CAT" + i;
+            String category = categories[random.nextInt(categories.length)];
+            double price = 1 + random.nextInt(100_000) / 100.0;
+            switch (i % 3) {
+                case 0:
+                    products[i] = new Electronics(productId, "Device " + i, price, category, 12, 5.0);
+                    break;
+                case 1:
+                    products[i] = new Clothing(productId, "Garment " + i, price, category, "M", "Cotton", "Black");
+                    break;
+                default:
+                    products[i] = new Books(productId, "Volume " + i, price, category, "Editor", "Press", "0-306-40615-2");
+            }
+            inventory.addProduct(products[i], random.nextInt(4)); // about a quarter out of stock
+        }
+        System.out.printf("  Load + index:  %8.1f ms%n", (System.nanoTime() - begin) / 1e6);
+
+        for (int round = 0; round < 2; round++) { // first round is JIT warm-up
+            begin = System.nanoTime();
+            int scanned = 0;
+            for (int q = 0; q < queries / 100; q++) { // a scan is slow enough that fewer queries suffice
+                List<Product> matches = new ArrayList<>();
+                for (Product product : products) {
+                    double price = product.getBasePrice();
+                    if (price >= 200 && price <= 500 && product.getCategory().equalsIgnoreCase("Electronics")
+                        && inventory.getStockLevel(product.getProductId()) > 0) {
+                        matches.add(product);
+                    }
+                }
+                scanned = matches.size();
+            }
+            double scanMicros = (System.nanoTime() - begin) / 1e3 / (queries / 100);
+
+            begin = System.nanoTime();
+            int indexed = 0;
+            for (int q = 0; q < queries; q++) {
+                indexed = inventory.findProducts(null, "Electronics", 200, 500, true).size();
+            }
+            double indexMicros = (System.nanoTime() - begin) / 1e3 / queries;
+            sink = scanned + indexed;
+
+            if (round == 1) {
+                System.out.printf("  Full scan:     %10.1f us/query (%,d matches)%n", scanMicros, scanned);
+                System.out.printf("  Index:         %10.1f us/query (%,d matches)  x%.0f faster%n",
+                                 indexMicros, indexed, scanMicros / indexMicros);
+            }
+        }
+
+        // Consistency: writers re-add, restock and reprice while readers query
+        int writers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        CountDownLatch done = new CountDownLatch(writers);
+        LongAdder badResults = new LongAdder();
+        LongAdder queriesRun = new LongAdder();
+        for (int w = 0; w < writers; w++) {
+            new Thread(() -> {
+                ThreadLocalRandom writerRandom = ThreadLocalRandom.current();
+                try {
+                    for (int i = 0; i < 200_000; i++) {
+                        int p = writerRandom.nextInt(catalogue);
+                        if ((i & 1) == 0) {
+                            Product old = products[p];
+                            inventory.addProduct(new Electronics(old.getProductId(), old.getName(),
+                                1 + writerRandom.nextInt(100_000) / 100.0, old.getCategory(), 12, 5.0), writerRandom.nextInt(4));
+                        } else {
+                            try {
+                                inventory.updateStock(products[p].getProductId(), writerRandom.nextBoolean() ? 1 : -1);
+                            } catch (InvalidProductDataException e) {
+                                // already out of stock
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    badResults.increment();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        while (done.getCount() > 0) {
+            List<Product> matches = inventory.findProducts("Electronics", "Electronics", 200, 500, false);
+            double previous = 0;
+            for (Product product : matches) {
+                double price = product.getBasePrice();
+                if (price < 200 || price > 500 || price < previous) {
+                    badResults.increment();
+                }
+                previous = price;
+            }
+            queriesRun.increment();
+        }
+        inventory.repriceAll(product -> product.getBasePrice() * 1.10);
+        int indexedTotal = inventory.findProducts(null, null, 0, Double.MAX_VALUE, false).size();
+        System.out.printf("  %d writer(s) vs %,d concurrent queries: %d bad results, %,d indexed of %,d -> %s%n",
+                         writers, queriesRun.sum(), badResults.sum(), indexedTotal, catalogue,
+                         badResults.sum() == 0 && indexedTotal == catalogue ? "CONSISTENT" : "INCONSISTENT");
+        System.out.println("─────────────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkCatalogueLoad() throws Exception {
+        int rows = Integer.getInteger("bench.loader.rows", 1_000_000);
+        System.out.println("8. BULK CATALOGUE LOAD (" + rows + " rows, 1 in 10,000 invalid)");
+        System.out.println("─────────────────────────────────────────────────────────────");
+
+        String[] categories = { "Computers", "Audio", "Apparel", "Outerwear", "Fiction", "Reference" };
+        String[] sizes = { "XS", "S", "M", "L", "XL" };
+        String[] materials = { "Cotton", "Wool", "Linen", "Polyester" };
+        String[] colors = { "Black", "White", "Navy", "Grey", "Red" };
+        Path csv = Files.createTempFile("catalogue", ".csv");
+        Path binary = Files.createTempFile("catalogue", ".bin");
+        try {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            try (BufferedWriter out = Files.newBufferedWriter(csv)) {
+                out.write("# type,productId,name,basePrice,category,stock,...");
+                out.newLine();
+                for (int i = 0; i < rows; i++) {
+                    String price = (i % 10_000 == 9_999 ? "-" : "") + (1 + random.nextInt(100_000) / 100.0);
+                    String category = categories[random.nextInt(categories.length)];
+                    switch (i % 3) {
+                        case 0:
+                            out.write("Electronics,BLK" + i + ",Device " + i + "," + price + "," + category + ","
+                                      + random.nextInt(100) + "," + random.nextInt(37) + "," + random.nextInt(500));
+                            break;
+                        case 1:
+                            out.write("Clothing,BLK" + i + ",Garment " + i + "," + price + "," + category + ","
+                                      + random.nextInt(100) + "," + sizes[random.nextInt(sizes.length)] + ","
+                                      + materials[random.nextInt(materials.length)] + "," + colors[random.nextInt(colors.length)]);
+                            break;
+                        default:
+                            out.write("Books,BLK" + i + ",Volume " + i + "," + price + "," + category + ","
+                                      + random.nextInt(100) + ",Author " + random.nextInt(1000) + ",Press "
+                                      + random.nextInt(20) + ",0-306-40615-2");
+                    }
+                    out.newLine();
+                }
+            }
+            long begin = System.nanoTime();
+            CatalogueLoader.convertCsvToBinary(csv, binary);
+            System.out.printf("  CSV %,d MB, binary %,d MB (converted in %.1f s)%n",
+                             Files.size(csv) >> 20, Files.size(binary) >> 20, (System.nanoTime() - begin) / 1e9);
+
+            // One row at a time through BufferedReader and addProduct, as main() builds products
+            System.gc();
+            InventoryManager inventory = new InventoryManager(false);
+            int rejected = 0;
+            begin = System.nanoTime();
+            try (BufferedReader in = Files.newBufferedReader(csv)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.startsWith("#")) {
+                        continue;
+                    }
+                    String[] fields = line.split(",");
+                    try {
+                        double price = Double.parseDouble(fields[3]);
+                        Product product;
+                        switch (fields[0]) {
+                            case "Electronics":
+                                product = new Electronics(fields[1], fields[2], price, fields[4],
+                                                          Integer.parseInt(fields[6]), Double.parseDouble(fields[7]));
+                                break;
+                            case "Clothing":
+                                product = new Clothing(fields[1], fields[2], price, fields[4], fields[6], fields[7], fields[8]);
+                                break;
+                            default:
+                                product = new Books(fields[1], fields[2], price, fields[4], fields[6], fields[7], fields[8]);
+                        }
+                        inventory.addProduct(product, Integer.parseInt(fields[5]));
+                    } catch (InvalidProductDataException e) {
+                        rejected++;
+                    }
+                }
+            }
+            long sequentialNanos = System.nanoTime() - begin;
+            System.out.printf("  Row by row:  %,d rejected in %.2f s (%,.0f rows/s)%n",
+                             rejected, sequentialNanos / 1e9, rows / (sequentialNanos / 1e9));
+            inventory = null;
+
+            System.gc();
+            CatalogueLoader.LoadReport report = new CatalogueLoader(new InventoryManager(false)).loadCsv(csv);
+            System.out.println("  CSV loader:    " + report);
+            System.out.println("    first rejection: " + report.getErrors().get(0));
+
+            System.gc();
+            report = new CatalogueLoader(new InventoryManager(false)).loadBinary(binary);
+            System.out.println("  Binary loader: " + report);
+            System.out.println("    first rejection: " + report.getErrors().get(0));
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(binary);
+        }
+        System.out.println("─────────────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkIsbnValidation() {
+        int checks = 20_000_000;
+        System.out.println("9. ISBN VALIDATION (lookahead regex vs single-pass check)");
+        System.out.println("─────────────────────────────────────────────────────────────");
+
+        // The pattern Books used before IsbnValidator: shape only, no check digit
+        Pattern legacy = Pattern.compile("^(?=(?:\\D*\\d){10}(?:(?:\\D*\\d){3})?$)[\\d-]+$");
+        String[][] inputs = {
+            { "978-0-306-40615-7", "0-306-40615-2", "9780134685991", "0-8044-2957-X" },     // valid
+            { "978-0-306-40615-8", "invalid-isbn", "12345", "0-306-40615-2-1234567" }       // invalid
+        };
+        com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int round = 0; round < 2; round++) { // first round is JIT warm-up
+            for (int kind = 0; kind < inputs.length; kind++) {
+                String[] isbns = inputs[kind];
+                long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+                long begin = System.nanoTime();
+                int accepted = 0;
+                for (int i = 0; i < checks / 10; i++) { // the regex is slow enough that fewer checks suffice
+                    if (legacy.matcher(isbns[i & 3]).matches()) {
+                        accepted++;
+                    }
+                }
+                long regexNanos = System.nanoTime() - begin;
+                long regexBytes = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+                allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+                begin = System.nanoTime();
+                long keys = 0;
+                for (int i = 0; i < checks; i++) {
+                    keys += IsbnValidator.toKey(isbns[i & 3]);
+                }
+                long checkNanos = System.nanoTime() - begin;
+                long checkBytes = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+                sink = accepted + keys;
+
+                if (round == 1) {
+                    double regexPerOp = (double) regexNanos / (checks / 10);
+                    double checkPerOp = (double) checkNanos / checks;
+                    System.out.printf("  %-7s regex: %7.1f ns/op %6.1f bytes/op (accepts %d/4) | IsbnValidator: %5.1f ns/op %4.1f bytes/op  x%.0f%n",
+                                     kind == 0 ? "Valid" : "Invalid", regexPerOp, (double) regexBytes / (checks / 10),
+                                     accepted * 4 / (checks / 10), checkPerOp, (double) checkBytes / checks,
+                                     regexPerOp / checkPerOp);
+                }
+            }
+        }
+        System.out.println("  (the regex also accepts \"978-0-306-40615-8\": it does not check the check digit)");
+        System.out.println("─────────────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkStockEvents() throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        System.out.println("10. PURCHASES WITH STOCK-EVENT SUBSCRIBERS (" + threads + " buyer thread(s), " + HOT_SKUS + " hot SKUs)");
+        System.out.println("─────────────────────────────────────────────────────────────");
+
+        // Deliveries get their own threads: the slow subscriber keeps one asleep, the rest share the other
+        ExecutorService delivery = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 2; round++) { // first round is JIT warm-up
+                for (int subscribers : new int[] { 0, 1, 10 }) {
+                    InventoryManager inventory = createHotInventory(Integer.MAX_VALUE);
+                    List<CountingSubscriber> attached = new ArrayList<>();
+                    for (int i = 0; i < subscribers; i++) {
+                        // The first subscriber is a slow analytics consumer: one batch at a time, 5 ms each
+                        CountingSubscriber subscriber = new CountingSubscriber(i == 0 ? 5 : 0);
+                        inventory.stockEvents(delivery).subscribe(subscriber);
+                        attached.add(subscriber);
+                    }
+                    LongAdder sold = new LongAdder();
+                    double purchasesPerSecond = runFlashSale(inventory, threads, 10_000_000 / threads, sold);
+
+                    // Every subscriber must end up with the same net change, however far it fell behind
+                    boolean complete = true;
+                    long batches = 0;
+                    long slowBatches = 0;
+                    for (CountingSubscriber subscriber : attached) {
+                        subscriber.catchUp();
+                        long deadline = System.currentTimeMillis() + 10_000;
+                        while (subscriber.total != -sold.sum() && System.currentTimeMillis() < deadline) {
+                            Thread.sleep(1);
+                        }
+                        complete &= subscriber.total == -sold.sum();
+                        batches += subscriber.batches;
+                        slowBatches = attached.get(0).batches;
+                        subscriber.subscription.cancel();
+                    }
+                    if (round == 1) {
+                        System.out.printf("  %2d subscriber(s): %,14.0f purchases/s", subscribers, purchasesPerSecond);
+                        if (subscribers > 0) {
+                            System.out.printf("  %,d batches (slow one got %,d), all deltas delivered: %s",
+                                             batches, slowBatches, complete ? "YES" : "NO");
+                        }
+                        System.out.println();
+                    }
+                }
+            }
+        } finally {
+            delivery.shutdownNow();
+        }
+        System.out.println("─────────────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkLowStockAlerts() throws Exception {
+        int skus = Integer.getInteger("bench.skus", 1_000_000);
+        int purchases = 10_000_000;
+        int threshold = 5;
+        System.out.println("11. LOW-STOCK ALERTS (" + skus + " SKUs, threshold " + threshold + ", 50 ms debounce)");
+        System.out.println("─────────────────────────────────────────────────────────────");
+
+        String[] productIds = new String[skus];
+        for (int i = 0; i < skus; i++) {
+            productIds[i] = "LOW" + i;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            for (int round = 0; round < 2; round++) { // first round is JIT warm-up
+                for (boolean alerting : new boolean[] { false, true }) {
+                    InventoryManager inventory = new InventoryManager(false);
+                    for (int i = 0; i < skus; i++) {
+                        inventory.addProduct(new Electronics(productIds[i], "Gadget " + i, 49.99, "Gadgets", 12, 5.0), 20);
+                    }
+                    Set<String> alerted = ConcurrentHashMap.newKeySet();
+                    LongAdder alerts = new LongAdder();
+                    if (alerting) {
+                        inventory.setLowStockAlerts(alert -> {
+                            alerts.increment();
+                            alerted.add(alert.getProductId());
+                        }, scheduler, Duration.ofMillis(50));
+                        for (String productId : productIds) {
+                            inventory.setLowStockThreshold(productId, threshold);
+                        }
+                    }
+
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long begin = System.nanoTime();
+                    for (int i = 0; i < purchases; i++) {
+                        try {
+                            inventory.purchaseProduct(productIds[random.nextInt(skus)], 1);
+                        } catch (OutOfStockException e) {
+                            // this SKU has sold out
+                        }
+                    }
+                    long elapsed = System.nanoTime() - begin;
+
+                    if (!alerting) {
+                        // What a polling monitor would pay on every pass
+                        begin = System.nanoTime();
+                        int low = 0;
+                        for (String productId : productIds) {
+                            if (inventory.getStockLevel(productId) <= threshold) {
+                                low++;
+                            }
+                        }
+                        long scanNanos = System.nanoTime() - begin;
+                        if (round == 1) {
+                            System.out.printf("  Alerts off: %,12.0f purchases/s%n", purchases / (elapsed / 1e9));
+                            System.out.printf("  One polling scan of every SKU: %.1f ms (%,d low)%n", scanNanos / 1e6, low);
+                        }
+                        continue;
+                    }
+
+                    Thread.sleep(200); // let the last debounce delays run out
+                    int low = 0;
+                    boolean allAlerted = true;
+                    for (String productId : productIds) {
+                        if (inventory.getStockLevel(productId) <= threshold) {
+                            low++;
+                            allAlerted &= alerted.contains(productId);
+                        }
+                    }
+                    if (round == 1) {
+                        System.out.printf("  Alerts on:  %,12.0f purchases/s%n", purchases / (elapsed / 1e9));
+                        System.out.printf("  %,d alerts for %,d low SKUs, every low SKU alerted once: %s%n", alerts.sum(), low,
+                                         allAlerted && alerts.sum() == low ? "YES" : "NO");
+                    }
+                }
+            }
+        } finally {
+            scheduler.shutdownNow();
+        }
+        System.out.println("─────────────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkAttributeFootprint() throws Exception {
+        int garments = Integer.getInteger("bench.footprint.products", 1_000_000);
+        System.out.println("12. HEAP PER CLOTHING PRODUCT (" + garments + " parsed rows, class histogram)");
+        System.out.println("─────────────────────────────────────────────────────────────");
+
+        String[] categories = { "Apparel", "Outerwear", "Sportswear", "Formal" };
+        String[] sizes = { "XS", "S", "M", "L", "XL" };
+        String[] materials = { "Cotton", "Wool", "Linen", "Polyester", "Silk", "Denim" };
+        String[] colors = { "Black", "White", "Navy", "Grey", "Red", "Olive", "Beige" };
+
+        // As before dictionary encoding: every garment keeps the Strings its row was parsed into
+        long before = histogramBytes();
+        StringClothing[] legacy = new StringClothing[garments];
+        for (int i = 0; i < garments; i++) {
+            legacy[i] = new StringClothing("CLT" + i, "Garment " + i, 20 + i % 150,
+                new String(categories[i % categories.length]), new String(sizes[i % sizes.length]),
+                new String(materials[i % materials.length]), new String(colors[i % colors.length]));
+        }
+        long legacyBytes = histogramBytes() - before;
+        sink = legacy;
+        legacy = null;
+        sink = null;
+
+        before = histogramBytes();
+        Clothing[] compact = new Clothing[garments];
+        for (int i = 0; i < garments; i++) {
+            compact[i] = new Clothing("CLT" + i, "Garment " + i, 20 + i % 150,
+                new String(categories[i % categories.length]), new String(sizes[i % sizes.length]),
+                new String(materials[i % materials.length]), new String(colors[i % colors.length]));
+        }
+        long compactBytes = histogramBytes() - before;
+        sink = compact;
+
+        System.out.printf("  String attributes:     %,6.1f bytes/product (%,d MB)%n",
+                         (double) legacyBytes / garments, legacyBytes >> 20);
+        System.out.printf("  Dictionary codes:      %,6.1f bytes/product (%,d MB)  -%.0f%%%n",
+                         (double) compactBytes / garments, compactBytes >> 20, 100.0 * (legacyBytes - compactBytes) / legacyBytes);
+        System.out.printf("  Dictionaries: %d categories, %d materials, %d colors%n",
+                         Product.CATEGORIES.size(), Clothing.MATERIALS.size(), Clothing.COLORS.size());
+        System.out.println("  (both include the product ID and name Strings; the array holding them is included too)");
+        System.out.println("─────────────────────────────────────────────────────────────\n");
+        sink = null;
+    }
+
+    private static void benchmarkInventoryReport() throws Exception {
+        int catalogue = Integer.getInteger("bench.report.products", 1_000_000);
+        System.out.println("13. INVENTORY REPORT (" + catalogue + " products)");
+        System.out.println("─────────────────────────────────────────────────────────────");
+
+        InventoryManager inventory = createMixedInventory("RPT", catalogue);
+
+        Path legacyFile = Files.createTempFile("inventory-printf", ".txt");
+        Path writerFile = Files.createTempFile("inventory-writer", ".txt");
+        Path channelFile = Files.createTempFile("inventory-channel", ".txt");
+        try {
+            for (int round = 0; round < 2; round++) { // first round is JIT warm-up
+                // The loop displayInventory used to run, printing to a buffered file instead of the console
+                long begin = System.nanoTime();
+                try (PrintStream out = new PrintStream(new BufferedOutputStream(Files.newOutputStream(legacyFile), 1 << 16),
+                                                       false, StandardCharsets.UTF_8)) {
+                    out.println("\n╔══════════════════════════════════════════════════════════╗");
+                    out.println("║                    INVENTORY SUMMARY                    ║");
+                    out.println("╠══════════════════════════════════════════════════════════╣");
+                    out.printf("║ %-15s ║ %-20s ║ %-10s ║ %-8s ║%n", "Product ID", "Name", "Type", "Stock");
+                    out.println("╠═════════════════╬══════════════════════╬════════════╬══════════╣");
+                    for (int i = 0; i < catalogue; i++) {
+                        Product product = inventory.getProduct("RPT" + i);
+                        out.printf("║ %-15s ║ %-20s ║ %-10s ║ %8d ║%n", product.getProductId(), product.getName(),
+                                   product.getProductType(), inventory.getStockLevel(product.getProductId()));
+                    }
+                    out.println("╚═════════════════╩══════════════════════╩════════════╩══════════╝");
+                }
+                long legacyNanos = System.nanoTime() - begin;
+
+                begin = System.nanoTime();
+                try (Writer out = Files.newBufferedWriter(writerFile, StandardCharsets.UTF_8)) {
+                    inventory.writeInventoryReport(out, InventoryReportWriter.SortOrder.NONE, null);
+                }
+                long writerNanos = System.nanoTime() - begin;
+
+                begin = System.nanoTime();
+                try (FileChannel out = FileChannel.open(channelFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    inventory.writeInventoryReport(out, InventoryReportWriter.SortOrder.NONE, null);
+                }
+                long channelNanos = System.nanoTime() - begin;
+
+                begin = System.nanoTime();
+                long sortedRows;
+                try (FileChannel out = FileChannel.open(channelFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    sortedRows = inventory.writeInventoryReport(out, InventoryReportWriter.SortOrder.STOCK, "Books");
+                }
+                long sortedNanos = System.nanoTime() - begin;
+
+                if (round == 1) {
+                    System.out.printf("  printf loop:            %,12.0f rows/s%n", catalogue / (legacyNanos / 1e9));
+                    System.out.printf("  Report to Writer:       %,12.0f rows/s  x%.1f%n",
+                                     catalogue / (writerNanos / 1e9), (double) legacyNanos / writerNanos);
+                    System.out.printf("  Report to FileChannel:  %,12.0f rows/s  x%.1f%n",
+                                     catalogue / (channelNanos / 1e9), (double) legacyNanos / channelNanos);
+                    System.out.printf("  Books only, by stock:   %,12.0f rows/s (%,d rows)%n", sortedRows / (sortedNanos / 1e9), sortedRows);
+                }
+            }
+            // Unsorted rows come out in map order, so compare content rather than bytes
+            List<String> legacyLines = Files.readAllLines(legacyFile, StandardCharsets.UTF_8);
+            List<String> reportLines = Files.readAllLines(writerFile, StandardCharsets.UTF_8);
+            legacyLines.sort(null);
+            reportLines.sort(null);
+            System.out.println("  Same rows as printf: " + (legacyLines.equals(reportLines) ? "YES" : "NO"));
+        } finally {
+            Files.deleteIfExists(legacyFile);
+            Files.deleteIfExists(writerFile);
+            Files.deleteIfExists(channelFile);
+        }
+        System.out.println("─────────────────────────────────────────────────────────────\n");
+    }
+
+    private static void benchmarkCatalogueFile() throws Exception {
+        int catalogue = Integer.getInteger("bench.mapped.products", 1_000_000);
+        int lookups = Integer.getInteger("bench.mapped.lookups", 10_000);
+        System.out.println("14. MEMORY-MAPPED CATALOGUE (" + catalogue + " products, " + lookups + " lookups)");
+        System.out.println("─────────────────────────────────────────────────────────────");
+
+        Path file = Files.createTempFile("catalogue", ".dat");
+        try {
+            // Today's start-up: build every product on heap
+            long before = histogramBytes();
+            long begin = System.nanoTime();
+            InventoryManager rebuilt = createMixedInventory("MAP", catalogue);
+            long rebuildNanos = System.nanoTime() - begin;
+            long rebuiltBytes = histogramBytes() - before;
+
+            begin = System.nanoTime();
+            rebuilt.saveCatalogue(file);
+            long saveNanos = System.nanoTime() - begin;
+            rebuilt = null;
+
+            histogramBytes(); // the first collection after the save leaves some of the rebuilt catalogue behind
+            before = histogramBytes();
+            begin = System.nanoTime();
+            InventoryManager mapped = new InventoryManager(false);
+            mapped.openCatalogue(file);
+            long openNanos = System.nanoTime() - begin;
+            long openBytes = histogramBytes() - before;
+
+            String[] productIds = new String[lookups];
+            for (int i = 0; i < lookups; i++) {
+                productIds[i] = "MAP" + ThreadLocalRandom.current().nextInt(catalogue);
+            }
+            begin = System.nanoTime();
+            long stock = 0;
+            for (String productId : productIds) {
+                stock += mapped.getStockLevel(productId); // first access builds the product
+            }
+            long coldNanos = System.nanoTime() - begin;
+            begin = System.nanoTime();
+            for (String productId : productIds) {
+                stock += mapped.getStockLevel(productId);
+            }
+            long warmNanos = System.nanoTime() - begin;
+            sink = stock;
+            long touchedBytes = histogramBytes() - before;
+
+            begin = System.nanoTime();
+            int found = mapped.findProducts(null, null, 0, Double.MAX_VALUE, false).size(); // brings in the rest
+            long hydrateNanos = System.nanoTime() - begin;
+            sink = mapped;
+
+            System.out.printf("  Rebuild on heap:       %,8.0f ms  %,5d MB%n", rebuildNanos / 1e6, rebuiltBytes >> 20);
+            System.out.printf("  Save:                  %,8.0f ms  %,5d MB file%n", saveNanos / 1e6, Files.size(file) >> 20);
+            System.out.printf("  Open mapped:           %,8.3f ms  %,5d KB heap%n", openNanos / 1e6, openBytes >> 10);
+            System.out.printf("  First lookups:         %,8.2f us/lookup%n", coldNanos / 1e3 / lookups);
+            System.out.printf("  Repeat lookups:        %,8.2f us/lookup%n", warmNanos / 1e3 / lookups);
+            System.out.printf("  Heap after lookups:    %,8d KB%n", touchedBytes >> 10);
+            System.out.printf("  Bring in the rest:     %,8.0f ms  (%,d products)%n", hydrateNanos / 1e6, found);
+        } finally {
+            sink = null;
+            Files.deleteIfExists(file);
+        }
+        System.out.println("─────────────────────────────────────────────────────────────\n");
+    }
+
+    // A third each of Electronics, Clothing and Books, with stock from 0 to 499
+    private static InventoryManager createMixedInventory(String idPrefix, int products) {
+        InventoryManager inventory = new InventoryManager(false);
+        for (int i = 0; i < products; i++) {
+            String productId = idPrefix + i;
+            switch (i % 3) {
+                case 0:
+                    inventory.addProduct(new Electronics(productId, "Device " + i, 100 + i % 900, "Devices", 12, 20.0), i % 500);
+                    break;
+                case 1:
+                    inventory.addProduct(new Clothing(productId, "Garment " + i, 20 + i % 150, "Apparel", "L", "Wool", "Grey"), i % 500);
+                    break;
+                default:
+                    inventory.addProduct(new Books(productId, "Volume " + i, 5 + i % 60, "Reference", "Editor", "Press",
+                                                   "0-306-40615-2"), i % 500);
+            }
+        }
+        return inventory;
+    }
+
+    // Live heap in bytes from a class histogram, which runs a full GC first
+    private static long histogramBytes() throws Exception {
+        String histogram = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+            new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+            new Object[] { null }, new String[] { String[].class.getName() });
+        for (String line : histogram.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("Total")) {
+                String[] columns = trimmed.split("\\s+");
+                return Long.parseLong(columns[2]);
+            }
+        }
+        throw new IllegalStateException("No total in class histogram");
+    }
+
+    // Field layout of Clothing before dictionary encoding
+    @SuppressWarnings("unused")
+    private static final class StringClothing {
+        String productId;
+        String name;
+        volatile double basePrice;
+        String category;
+        volatile Object prices;
+        Object discountBands;
+        String size;
+        String material;
+        String color;
+
+        StringClothing(String productId, String name, double basePrice, String category,
+                       String size, String material, String color) {
+            this.productId = productId;
+            this.name = name;
+            this.basePrice = basePrice;
+            this.category = category;
+            this.size = size.trim().toUpperCase();
+            this.material = material.trim();
+            this.color = color.trim();
+        }
+    }
+
+    // Adds up the deltas it receives; a slow one requests one batch at a time and sleeps on each
+    private static final class CountingSubscriber implements Flow.Subscriber<List<StockChange>> {
+        private final long sleepMillis;
+        volatile Flow.Subscription subscription;
+        volatile boolean caughtUp;
+        volatile long total;
+        volatile long batches;
+
+        CountingSubscriber(long sleepMillis) {
+            this.sleepMillis = sleepMillis;
+        }
+
+        // Stop sleeping and take everything that is left
+        void catchUp() {
+            caughtUp = true;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(sleepMillis > 0 ? 1 : Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<StockChange> batch) {
+            long sum = total; // deliveries to one subscriber never overlap
+            for (StockChange change : batch) {
+                sum += change.getDelta();
+            }
+            total = sum;
+            batches++;
+            if (sleepMillis > 0 && !caughtUp) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            System.err.println("❌ Subscriber failed: " + throwable);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    // The thresholds Electronics, Clothing and Books hard-coded before the rule engine, behind a virtual call
+    private abstract static class LegacyDiscount {
+        abstract double rate(double basePrice);
+    }
+
+    private static final class LegacyElectronics extends LegacyDiscount {
+        @Override
+        double rate(double basePrice) {
+            return basePrice > 500 ? 0.10 : basePrice > 200 ? 0.05 : 0.0;
+        }
+    }
+
+    private static final class LegacyClothing extends LegacyDiscount {
+        @Override
+        double rate(double basePrice) {
+            return basePrice > 100 ? 0.15 : basePrice > 50 ? 0.08 : 0.0;
+        }
+    }
+
+    private static final class LegacyBooks extends LegacyDiscount {
+        @Override
+        double rate(double basePrice) {
+            return basePrice > 30 ? 0.12 : basePrice > 15 ? 0.06 : 0.0;
+        }
+    }
+
+    private static double runCheckouts(InventoryManager inventory, String[] productIds, int threads,
+                                       int ordersPerThread, int linesPerOrder) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread shopper = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<OrderLine> cart = new ArrayList<>(linesPerOrder);
+                double revenue = 0;
+                try {
+                    start.await();
+                    for (int i = 0; i < ordersPerThread; i++) {
+                        cart.clear();
+                        for (int line = 0; line < linesPerOrder; line++) {
+                            cart.add(new OrderLine(productIds[random.nextInt(productIds.length)], 1 + random.nextInt(3)));
+                        }
+                        revenue += inventory.placeOrder(cart);
+                    }
+                } catch (InterruptedException | ProductNotFoundException | OutOfStockException e) {
+                    System.err.println("❌ Shopper failed: " + e.getMessage());
+                } finally {
+                    sink = revenue;
+                    done.countDown();
+                }
+            });
+            shopper.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        return (double) threads * ordersPerThread / (elapsed / 1e9);
+    }
+
+    private static double runFlashSale(InventoryManager inventory, int threads, int purchasesPerThread, LongAdder sold)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread buyer = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    for (int i = 0; i < purchasesPerThread; i++) {
+                        try {
+                            inventory.purchaseProduct(skuId(random.nextInt(HOT_SKUS)), 1);
+                            sold.increment();
+                        } catch (OutOfStockException e) {
+                            // sold out: expected once demand exceeds stock
+                        }
+                    }
+                } catch (InterruptedException | ProductNotFoundException e) {
+                    System.err.println("❌ Buyer failed: " + e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            }, "buyer-" + t);
+            buyer.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        return (double) threads * purchasesPerThread / (elapsed / 1e9);
+    }
+
+    private static InventoryManager createHotInventory(int stockPerSku) {
+        InventoryManager inventory = new InventoryManager(false);
+        for (int sku = 0; sku < HOT_SKUS; sku++) {
+            inventory.addProduct(new Electronics(skuId(sku), "Flash Sale Item " + sku, 199.99, "Deals", 12, 50.0), stockPerSku);
+        }
+        return inventory;
+    }
+
+    private static String skuId(int sku) {
+        return SKU_IDS[sku];
+    }
+}
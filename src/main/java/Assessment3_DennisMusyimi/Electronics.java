@@ -0,0 +1,49 @@
+package Assessment3_DennisMusyimi;
+
+// Electronics Class
+class Electronics extends Product {
+    private int warrantyPeriod; // in months
+    private double powerConsumption; // in watts
+
+    public Electronics(String productId, String name, double basePrice, String category, 
+                      int warrantyPeriod, double powerConsumption) {
+        super(productId, name, basePrice, category);
+        validateWarrantyPeriod(warrantyPeriod);
+        validatePowerConsumption(powerConsumption);
+
+        this.warrantyPeriod = warrantyPeriod;
+        this.powerConsumption = powerConsumption;
+    }
+
+    @Override
+    public String getProductType() {
+        return "Electronics";
+    }
+
+    @Override
+    protected void displaySpecificInfo() {
+        System.out.printf("║ %-20s: %-20d ║%n", "Warranty (months)", warrantyPeriod);
+        System.out.printf("║ %-20s: %-20.1f ║%n", "Power (watts)", powerConsumption);
+    }
+
+    private void validateWarrantyPeriod(int warranty) {
+        if (warranty < 0) {
+            throw new InvalidProductDataException("Warranty period cannot be negative", "warrantyPeriod", String.valueOf(warranty));
+        }
+        if (warranty > 120) { // Max 10 years
+            throw new InvalidProductDataException("Warranty period cannot exceed 120 months", "warrantyPeriod", String.valueOf(warranty));
+        }
+    }
+
+    private void validatePowerConsumption(double power) {
+        if (power < 0) {
+            throw new InvalidProductDataException("Power consumption cannot be negative", "powerConsumption", String.valueOf(power));
+        }
+        if (power > 10000) { // Reasonable upper limit
+            throw new InvalidProductDataException("Power consumption seems unrealistic", "powerConsumption", String.valueOf(power));
+        }
+    }
+
+    public int getWarrantyPeriod() { return warrantyPeriod; }
+    public double getPowerConsumption() { return powerConsumption; }
+}
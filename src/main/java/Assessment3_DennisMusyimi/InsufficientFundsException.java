@@ -0,0 +1,80 @@
+package Assessment3_DennisMusyimi;
+
+// Custom Checked Exception for Insufficient Funds
+// Insufficient funds is a routine business outcome, so instances skip the stack trace
+class InsufficientFundsException extends Exception {
+    private long currentBalanceCents;
+    private long requestedAmountCents;
+    private String accountNumber;
+    private String operation; // set when the message is built lazily
+
+    public InsufficientFundsException(String message) {
+        super(message, null, false, false);
+    }
+
+    public InsufficientFundsException(String message, double currentBalance, double requestedAmount) {
+        this(message, Money.toCents(currentBalance), Money.toCents(requestedAmount), null);
+    }
+
+    public InsufficientFundsException(String message, double currentBalance, double requestedAmount, String accountNumber) {
+        this(message, Money.toCents(currentBalance), Money.toCents(requestedAmount), accountNumber);
+    }
+
+    private InsufficientFundsException(String message, long currentBalanceCents, long requestedAmountCents, String accountNumber) {
+        super(message, null, false, false);
+        this.currentBalanceCents = currentBalanceCents;
+        this.requestedAmountCents = requestedAmountCents;
+        this.accountNumber = accountNumber;
+    }
+
+    /**
+     * Build the exception straight from cent amounts (avoids the double round trip)
+     */
+    static InsufficientFundsException ofCents(String message, long currentBalanceCents, long requestedAmountCents, String accountNumber) {
+        return new InsufficientFundsException(message, currentBalanceCents, requestedAmountCents, accountNumber);
+    }
+
+    /**
+     * "Cannot <operation> $x - insufficient funds", formatted only if someone reads the message
+     */
+    static InsufficientFundsException forOperation(String operation, long currentBalanceCents, long requestedAmountCents, String accountNumber) {
+        InsufficientFundsException exception = ofCents(null, currentBalanceCents, requestedAmountCents, accountNumber);
+        exception.operation = operation;
+        return exception;
+    }
+
+    @Override
+    public String getMessage() {
+        if (operation != null) {
+            return String.format("Cannot %s $%.2f - insufficient funds", operation, getRequestedAmount());
+        }
+        return super.getMessage();
+    }
+
+    public double getCurrentBalance() {
+        return Money.toDouble(currentBalanceCents);
+    }
+
+    public double getRequestedAmount() {
+        return Money.toDouble(requestedAmountCents);
+    }
+
+    public long getCurrentBalanceCents() {
+        return currentBalanceCents;
+    }
+
+    public long getRequestedAmountCents() {
+        return requestedAmountCents;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + 
+               String.format(" [Account: %s, Balance: $%.2f, Requested: $%.2f]", 
+                           accountNumber != null ? accountNumber : "N/A", getCurrentBalance(), getRequestedAmount());
+    }
+}
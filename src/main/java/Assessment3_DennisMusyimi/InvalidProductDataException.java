@@ -0,0 +1,22 @@
+package Assessment3_DennisMusyimi;
+
+// Custom Unchecked Exception for Invalid Product Data
+class InvalidProductDataException extends RuntimeException {
+    private String fieldName;
+    private String invalidValue;
+
+    public InvalidProductDataException(String message, String fieldName, String invalidValue) {
+        super(message);
+        this.fieldName = fieldName;
+        this.invalidValue = invalidValue;
+    }
+
+    public String getFieldName() { return fieldName; }
+    public String getInvalidValue() { return invalidValue; }
+
+    @Override
+    public String toString() {
+        return super.toString() + 
+               String.format(" [Field: %s, Value: %s]", fieldName, invalidValue);
+    }
+}
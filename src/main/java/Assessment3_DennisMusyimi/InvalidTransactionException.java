@@ -0,0 +1,65 @@
+package Assessment3_DennisMusyimi;
+
+// Custom Unchecked Exception for Invalid Transactions
+class InvalidTransactionException extends RuntimeException {
+    private String transactionType;
+    private double amount;
+    private String reason;
+
+    public InvalidTransactionException(String message) {
+        super(message);
+    }
+
+    public InvalidTransactionException(String message, String transactionType) {
+        super(message);
+        this.transactionType = transactionType;
+    }
+
+    public InvalidTransactionException(String message, String transactionType, double amount) {
+        super(message);
+        this.transactionType = transactionType;
+        this.amount = amount;
+    }
+
+    public InvalidTransactionException(String message, String transactionType, double amount, String reason) {
+        super(message);
+        this.transactionType = transactionType;
+        this.amount = amount;
+        this.reason = reason;
+    }
+
+    public String getTransactionType() {
+        return transactionType;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    /**
+     * The rejected amount in cents, or 0 when it was not a finite number
+     */
+    public long getAmountCents() {
+        return Double.isFinite(amount) ? Money.toCents(amount) : 0;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(super.toString());
+        if (transactionType != null) {
+            sb.append(" [Type: ").append(transactionType);
+            if (amount != 0) {
+                sb.append(", Amount: $").append(String.format("%.2f", amount));
+            }
+            if (reason != null) {
+                sb.append(", Reason: ").append(reason);
+            }
+            sb.append("]");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,591 @@
+package Assessment3_DennisMusyimi;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+// Inventory Management System
+// Safe for concurrent use: stock counters are updated with compare-and-set, never read-then-put
+class InventoryManager {
+    private final ConcurrentHashMap<String, StockRecord> records; // product and stock counters, one lookup per operation
+    private final CatalogueIndex index;                           // by type, category and price
+    private final StockEventPublisher stockEvents;                // batched stock deltas for subscribers
+    private volatile LowStockAlerts lowStockAlerts;               // null until setLowStockAlerts
+    private volatile CatalogueFile catalogue;                     // products not yet brought in from openCatalogue, or null
+    private final TimingWheel reservationWheel;     // guarded by its own monitor
+    private final boolean verbose; // print a line for every change (off for high-volume callers)
+
+    private static final long RESERVATION_TICK_MILLIS = 1000;
+    private static final int STOCK_EVENT_BATCH_SIZE = 1024;       // products per delivered batch
+    private static final long BULK_PARALLELISM_THRESHOLD = 10_000; // below this many products, bulk operations run on the caller
+
+    // Where and how low-stock alerts are delivered, replaced as a whole
+    private static final class LowStockAlerts {
+        final Consumer<LowStockAlert> listener;
+        final ScheduledExecutorService scheduler;
+        final long debounceMillis;
+
+        LowStockAlerts(Consumer<LowStockAlert> listener, ScheduledExecutorService scheduler, long debounceMillis) {
+            this.listener = listener;
+            this.scheduler = scheduler;
+            this.debounceMillis = debounceMillis;
+        }
+    }
+
+    public InventoryManager() {
+        this(true);
+    }
+
+    public InventoryManager(boolean verbose) {
+        this.records = new ConcurrentHashMap<>();
+        this.index = new CatalogueIndex();
+        this.stockEvents = new StockEventPublisher(STOCK_EVENT_BATCH_SIZE);
+        this.reservationWheel = new TimingWheel(RESERVATION_TICK_MILLIS, System.currentTimeMillis());
+        this.verbose = verbose;
+    }
+
+    public void addProduct(Product product, int initialStock) throws InvalidProductDataException {
+        if (product == null) {
+            throw new InvalidProductDataException("Product cannot be null", "product", "null");
+        }
+        if (initialStock < 0) {
+            throw new InvalidProductDataException("Initial stock cannot be negative", "initialStock", String.valueOf(initialStock));
+        }
+
+        hydrate(product.getProductId()); // a saved copy is replaced like any other, keeping its threshold
+        product.refreshPrices(); // price once here rather than on the first purchase
+        StockRecord record = new StockRecord(product, initialStock);
+        int[] previousStock = new int[1];
+        records.compute(product.getProductId(), (productId, previous) -> {
+            if (previous != null) {
+                index.remove(previous.indexEntry);
+                previousStock[0] = previous.getAvailable();
+                record.setLowStockThreshold(previous.getLowStockThreshold());
+            }
+            record.indexEntry = index.add(record);
+            return record;
+        });
+        stockChanged(record, initialStock - previousStock[0], initialStock);
+
+        if (verbose) {
+            System.out.printf("✓ Added product %s with stock level %d%n", product.getProductId(), initialStock);
+        }
+    }
+
+    public Product getProduct(String productId) throws ProductNotFoundException {
+        return record(productId, "Product not found").getProduct();
+    }
+
+    /**
+     * Stock available to sell; units held by reservations are reported by getReservedStock
+     */
+    public int getStockLevel(String productId) throws ProductNotFoundException {
+        return record(productId, "Product not found in inventory").getAvailable();
+    }
+
+    public int getReservedStock(String productId) throws ProductNotFoundException {
+        return record(productId, "Product not found in inventory").getReserved();
+    }
+
+    public void updateStock(String productId, int quantity) throws ProductNotFoundException, InvalidProductDataException {
+        StockRecord record = record(productId, "Product not found");
+
+        int currentStock = record.adjust(quantity);
+        if (currentStock < 0) {
+            throw new InvalidProductDataException("Stock cannot go below zero", "quantity", String.valueOf(quantity));
+        }
+        stockChanged(record, quantity, currentStock + quantity);
+
+        if (verbose) {
+            System.out.printf("✓ Updated stock for %s: %d -> %d%n", productId, currentStock, currentStock + quantity);
+        }
+    }
+
+    public void purchaseProduct(String productId, int quantity) 
+            throws ProductNotFoundException, OutOfStockException, InvalidProductDataException {
+
+        if (quantity <= 0) {
+            throw new InvalidProductDataException("Purchase quantity must be positive", "quantity", String.valueOf(quantity));
+        }
+
+        StockRecord record = record(productId, "Product not found");
+        int currentStock = record.take(quantity, "Insufficient stock for purchase");
+        stockChanged(record, -quantity, currentStock - quantity);
+
+        if (verbose) {
+            Product product = record.getProduct();
+            double totalPrice = product.applyTax() * quantity;
+            System.out.printf("✓ Purchase successful: %d x %s = $%.2f%n", 
+                             quantity, product.getName(), totalPrice);
+            System.out.printf("  Remaining stock: %d%n", currentStock - quantity);
+        }
+    }
+
+    /**
+     * Buy every line of a cart or nothing. Lines are reserved one at a time in product ID order;
+     * if one is short, the lines already taken are put back and OutOfStockException is thrown.
+     * A common order means two carts racing for the same products cannot starve each other
+     * by each holding what the other needs.
+     * @return order total (discount and tax applied per line)
+     */
+    public double placeOrder(List<OrderLine> cart)
+            throws ProductNotFoundException, OutOfStockException, InvalidProductDataException {
+
+        if (cart == null || cart.isEmpty()) {
+            throw new InvalidProductDataException("Order must contain at least one line", "cart", String.valueOf(cart));
+        }
+
+        // Sort by product and merge repeated products into one line
+        OrderLine[] lines = cart.toArray(new OrderLine[0]);
+        for (OrderLine line : lines) {
+            if (line == null || line.getQuantity() <= 0) {
+                throw new InvalidProductDataException("Order quantity must be positive", "quantity",
+                    line == null ? "null" : String.valueOf(line.getQuantity()));
+            }
+        }
+        Arrays.sort(lines, Comparator.comparing(OrderLine::getProductId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        int count = 0;
+        for (OrderLine line : lines) {
+            if (count > 0 && Objects.equals(lines[count - 1].getProductId(), line.getProductId())) {
+                int merged;
+                try {
+                    merged = Math.addExact(lines[count - 1].getQuantity(), line.getQuantity());
+                } catch (ArithmeticException e) {
+                    throw new InvalidProductDataException("Order quantity too large for product " + line.getProductId(),
+                        "quantity", lines[count - 1].getQuantity() + " + " + line.getQuantity());
+                }
+                lines[count - 1] = new OrderLine(line.getProductId(), merged);
+            } else {
+                lines[count++] = line;
+            }
+        }
+
+        // Resolve everything before touching any stock
+        StockRecord[] orderRecords = new StockRecord[count];
+        for (int i = 0; i < count; i++) {
+            orderRecords[i] = record(lines[i].getProductId(), "Product not found");
+        }
+
+        int[] remaining = new int[count];
+        for (int i = 0; i < count; i++) {
+            try {
+                remaining[i] = orderRecords[i].take(lines[i].getQuantity(), "Insufficient stock for order") - lines[i].getQuantity();
+            } catch (OutOfStockException e) {
+                for (int j = 0; j < i; j++) {
+                    orderRecords[j].release(lines[j].getQuantity());
+                }
+                throw e;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            stockChanged(orderRecords[i], -lines[i].getQuantity(), remaining[i]);
+        }
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < count; i++) {
+            total = total.add(BigDecimal.valueOf(orderRecords[i].getProduct().applyTax()).multiply(BigDecimal.valueOf(lines[i].getQuantity())));
+        }
+        double orderTotal = total.setScale(2, RoundingMode.HALF_UP).doubleValue();
+
+        if (verbose) {
+            System.out.printf("✓ Order placed: %d line(s) = $%.2f%n", count, orderTotal);
+        }
+        return orderTotal;
+    }
+
+    /**
+     * Hold stock for a checkout. The quantity stops being available at once and
+     * goes back automatically if the reservation is not confirmed within the hold.
+     */
+    public StockReservation reserveStock(String productId, int quantity, Duration hold)
+            throws ProductNotFoundException, OutOfStockException, InvalidProductDataException {
+
+        if (quantity <= 0) {
+            throw new InvalidProductDataException("Reservation quantity must be positive", "quantity", String.valueOf(quantity));
+        }
+        if (hold == null || hold.isNegative() || hold.isZero()) {
+            throw new InvalidProductDataException("Reservation hold must be positive", "hold", String.valueOf(hold));
+        }
+
+        StockRecord record = record(productId, "Product not found in inventory");
+        int remaining = record.take(quantity, "Insufficient stock for reservation") - quantity;
+        record.addReserved(quantity);
+        stockChanged(record, -quantity, remaining);
+
+        long now = System.currentTimeMillis();
+        StockReservation reservation = new StockReservation(record, quantity, now + hold.toMillis());
+        synchronized (reservationWheel) {
+            reservationWheel.advance(now, this::expire);
+            reservationWheel.schedule(reservation, reservation.getExpiresAtMillis());
+        }
+
+        if (verbose) {
+            System.out.printf("✓ Reserved %d x %s for %d minute(s)%n", quantity, productId, hold.toMinutes());
+        }
+        return reservation;
+    }
+
+    /**
+     * Payment arrived: sell the held stock.
+     * @return price of the reserved quantity (discount and tax applied)
+     */
+    public double confirmReservation(StockReservation reservation) throws ProductNotFoundException, OutOfStockException {
+        long now = System.currentTimeMillis();
+        boolean confirmed;
+        synchronized (reservationWheel) {
+            reservationWheel.advance(now, this::expire);
+            // A hold past its deadline is refused even if its tick has not fired yet
+            confirmed = now < reservation.getExpiresAtMillis() && reservation.finish(StockReservation.State.CONFIRMED, false);
+            if (confirmed) {
+                reservationWheel.cancel(reservation);
+            }
+        }
+        if (!confirmed) {
+            throw new OutOfStockException("Reservation is no longer held (" + reservation.getState() + ")",
+                reservation.getProductId(), reservation.getQuantity(), getStockLevel(reservation.getProductId()));
+        }
+
+        Product product = reservation.getProduct();
+        double totalPrice = product.applyTax() * reservation.getQuantity();
+        if (verbose) {
+            System.out.printf("✓ Reservation confirmed: %d x %s = $%.2f%n", 
+                             reservation.getQuantity(), product.getName(), totalPrice);
+        }
+        return totalPrice;
+    }
+
+    /**
+     * Give held stock back before the hold ends
+     * @return false when the reservation was already confirmed, cancelled or expired
+     */
+    public boolean cancelReservation(StockReservation reservation) {
+        synchronized (reservationWheel) {
+            if (!reservation.finish(StockReservation.State.CANCELLED, true)) {
+                return false;
+            }
+            reservationWheel.cancel(reservation);
+        }
+        stockChanged(reservation.getRecord(), reservation.getQuantity(), reservation.getRecord().getAvailable());
+        if (verbose) {
+            System.out.printf("✓ Reservation cancelled: %d x %s released%n", reservation.getQuantity(), reservation.getProductId());
+        }
+        return true;
+    }
+
+    /**
+     * Release every reservation whose hold has ended
+     * @return number of reservations expired
+     */
+    public int expireReservations() {
+        return expireReservations(System.currentTimeMillis());
+    }
+
+    int expireReservations(long nowMillis) {
+        synchronized (reservationWheel) {
+            return reservationWheel.advance(nowMillis, this::expire);
+        }
+    }
+
+    /**
+     * Expire reservations in the background once per wheel tick
+     */
+    public ScheduledFuture<?> scheduleReservationExpiry(ScheduledExecutorService scheduler) {
+        return scheduler.scheduleWithFixedDelay(this::expireReservations,
+            RESERVATION_TICK_MILLIS, RESERVATION_TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void expire(TimingWheel.Timer timer) {
+        StockReservation reservation = (StockReservation) timer;
+        if (reservation.finish(StockReservation.State.EXPIRED, true)) {
+            stockChanged(reservation.getRecord(), reservation.getQuantity(), reservation.getRecord().getAvailable());
+        }
+    }
+
+    /**
+     * Set a new base price on every product in parallel
+     * @param newBasePrice maps a product to its new base price
+     */
+    public void repriceAll(ToDoubleFunction<Product> newBasePrice) {
+        hydrateAll();
+        records.forEachValue(BULK_PARALLELISM_THRESHOLD,
+                             record -> setPrice(record, newBasePrice.applyAsDouble(record.getProduct())));
+        if (verbose) {
+            System.out.printf("✓ Repriced %d products%n", records.size());
+        }
+    }
+
+    /**
+     * Set a new base price on one product, keeping findProducts consistent with it
+     */
+    public void reprice(String productId, double newBasePrice) throws ProductNotFoundException, InvalidProductDataException {
+        StockRecord record = record(productId, "Product not found");
+        setPrice(record, newBasePrice);
+        if (verbose) {
+            System.out.printf("✓ Repriced %s to $%.2f%n", productId, record.getProduct().getBasePrice());
+        }
+    }
+
+    // Change the price and the product's index entry together, unless the product was replaced meanwhile
+    private void setPrice(StockRecord record, double price) {
+        Product product = record.getProduct();
+        records.computeIfPresent(product.getProductId(), (productId, current) -> {
+            if (current == record) {
+                product.setBasePrice(price);
+                index.remove(record.indexEntry);
+                record.indexEntry = index.add(record);
+            }
+            return current;
+        });
+    }
+
+    /**
+     * Recompute stale cached prices in parallel, e.g. right after Product.invalidatePrices()
+     */
+    public void refreshPrices() {
+        records.forEachValue(BULK_PARALLELISM_THRESHOLD, record -> record.getProduct().refreshPrices());
+    }
+
+    /**
+     * Find products through the secondary indexes, e.g. all Electronics between $200 and $500 in stock.
+     * @param productType type to match (case-insensitive), or null for any
+     * @param category category to match (case-insensitive), or null for any
+     * @param minPrice lowest base price, inclusive
+     * @param maxPrice highest base price, inclusive
+     * @param inStockOnly only products with available stock (checked per matching entry; stock is not indexed)
+     * @return matching products in ascending base price order
+     */
+    public List<Product> findProducts(String productType, String category, double minPrice, double maxPrice,
+                                      boolean inStockOnly) {
+        hydrateAll();
+        return index.query(productType, category, minPrice, maxPrice, inStockOnly);
+    }
+
+    /**
+     * Find a book by either form of its ISBN, hyphenated or not
+     */
+    public Books findBookByIsbn(String isbn) throws ProductNotFoundException {
+        long key = IsbnValidator.toKey(isbn);
+        hydrateAll();
+        StockRecord record = key >= 0 ? index.bookByIsbn(key) : null;
+        if (record == null) {
+            throw new ProductNotFoundException("Book not found", isbn);
+        }
+        return (Books) record.getProduct();
+    }
+
+    /**
+     * Feed of stock changes: each subscriber gets batches of net per-product deltas
+     * at the pace it requests them, and a slow subscriber never holds up a purchase
+     * @param executor runs the deliveries (onNext etc.) to subscribers of the returned publisher;
+     *                 a subscriber that blocks holds one of its threads while it does
+     */
+    public Flow.Publisher<List<StockChange>> stockEvents(Executor executor) {
+        Objects.requireNonNull(executor, "executor");
+        return subscriber -> stockEvents.subscribe(subscriber, executor);
+    }
+
+    /**
+     * Raise a LowStockAlert when a product's available stock falls to its threshold
+     * and is still there after the debounce delay. A product alerts once, then again
+     * only after its stock has climbed back above the threshold.
+     * Checks run only for the product a change touched; nothing scans the catalogue.
+     * @param listener receives alerts, on the scheduler's threads
+     * @param scheduler runs the debounce delay and the delivery
+     * @param debounce how long stock must stay low before alerting (zero for at once)
+     */
+    public void setLowStockAlerts(Consumer<LowStockAlert> listener, ScheduledExecutorService scheduler, Duration debounce) {
+        Objects.requireNonNull(listener, "listener");
+        Objects.requireNonNull(scheduler, "scheduler");
+        if (debounce == null || debounce.isNegative()) {
+            throw new InvalidProductDataException("Debounce delay cannot be negative", "debounce", String.valueOf(debounce));
+        }
+        lowStockAlerts = new LowStockAlerts(listener, scheduler, debounce.toMillis());
+    }
+
+    /**
+     * Alert when the product's available stock is at or below threshold; a negative threshold turns alerts off
+     */
+    public void setLowStockThreshold(String productId, int threshold) throws ProductNotFoundException {
+        StockRecord record = record(productId, "Product not found in inventory");
+        record.setLowStockThreshold(Math.max(threshold, StockRecord.NO_THRESHOLD));
+        checkLowStock(record, record.getAvailable()); // it may already be low
+    }
+
+    // Every change to available stock ends here, with the level the change left behind
+    private void stockChanged(StockRecord record, int delta, int available) {
+        if (delta != 0 && stockEvents.hasSubscribers()) {
+            stockEvents.stockChanged(record, delta);
+        }
+        checkLowStock(record, available);
+    }
+
+    private void checkLowStock(StockRecord record, int available) {
+        if (available <= record.getLowStockThreshold()) {
+            LowStockAlerts alerts = lowStockAlerts;
+            if (alerts != null && record.getLowStockState() == StockRecord.ARMED
+                    && record.moveLowStockState(StockRecord.ARMED, StockRecord.PENDING)) {
+                try {
+                    alerts.scheduler.schedule(() -> deliverLowStockAlert(record, alerts), alerts.debounceMillis, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // The scheduler is shut down; the stock change itself went through, so only the alert is lost.
+                    // Re-arm so a later change can alert once a working scheduler is installed.
+                    record.moveLowStockState(StockRecord.PENDING, StockRecord.ARMED);
+                    System.err.println("❌ Low-stock alert for " + record.getProduct().getProductId()
+                                       + " rejected by its scheduler");
+                }
+            }
+        } else if (record.getLowStockState() == StockRecord.ALERTED) {
+            record.moveLowStockState(StockRecord.ALERTED, StockRecord.ARMED);
+        }
+    }
+
+    private void deliverLowStockAlert(StockRecord record, LowStockAlerts alerts) {
+        int available = record.getAvailable();
+        int threshold = record.getLowStockThreshold();
+        boolean current = records.get(record.getProduct().getProductId()) == record;
+        if (available > threshold || !current) {
+            // Recovered (or replaced) during the debounce delay. Re-check after re-arming:
+            // a change that landed while this was PENDING did not schedule its own alert.
+            record.moveLowStockState(StockRecord.PENDING, StockRecord.ARMED);
+            if (current) {
+                checkLowStock(record, record.getAvailable());
+            }
+            return;
+        }
+        if (record.moveLowStockState(StockRecord.PENDING, StockRecord.ALERTED)) {
+            try {
+                alerts.listener.accept(new LowStockAlert(record.getProduct(), available, threshold, System.currentTimeMillis()));
+            } catch (RuntimeException e) {
+                System.err.println("❌ Low-stock listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private StockRecord record(String productId, String message) throws ProductNotFoundException {
+        StockRecord record = productId != null ? records.get(productId) : null;
+        if (record == null && productId != null) {
+            record = hydrate(productId);
+        }
+        if (record == null) {
+            throw new ProductNotFoundException(message, productId);
+        }
+        return record;
+    }
+
+    public void displayInventory() {
+        try {
+            writeInventoryReport(new OutputStreamWriter(System.out), InventoryReportWriter.SortOrder.NONE, null);
+        } catch (IOException e) {
+            System.err.println("❌ Error writing inventory: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stream the inventory table in pages, e.g. to a file, a socket or System.out
+     * @param order row order, or SortOrder.NONE to stream with live stock levels
+     * @param productType only this type (case-insensitive), or null for every product
+     * @return number of product rows written
+     */
+    public long writeInventoryReport(Writer out, InventoryReportWriter.SortOrder order, String productType) throws IOException {
+        hydrateAll();
+        return new InventoryReportWriter(order, productType).write(records.values(), out);
+    }
+
+    /**
+     * Stream the inventory table as UTF-8 in pages
+     * @see #writeInventoryReport(Writer, InventoryReportWriter.SortOrder, String)
+     */
+    public long writeInventoryReport(WritableByteChannel out, InventoryReportWriter.SortOrder order, String productType)
+            throws IOException {
+        hydrateAll();
+        return new InventoryReportWriter(order, productType).write(records.values(), out);
+    }
+
+    /**
+     * Save every product with its available stock and low-stock threshold, for openCatalogue
+     * to map back in. Units held by reservations are not saved.
+     * @return number of products saved
+     */
+    public int saveCatalogue(Path file) throws IOException {
+        hydrateAll();
+        int saved = CatalogueFile.save(file, records.values());
+        if (verbose) {
+            System.out.printf("✓ Saved %d products to %s%n", saved, file);
+        }
+        return saved;
+    }
+
+    /**
+     * Serve the products in a file written by saveCatalogue without loading them.
+     * The file is memory-mapped and nothing is read up front: a product is built
+     * on heap the first time it is looked up, and operations over the whole catalogue
+     * (findProducts, findBookByIsbn, repriceAll, reports, saveCatalogue) bring in the
+     * rest first. Products already here, or added later, take precedence over the file's.
+     */
+    public void openCatalogue(Path file) throws IOException {
+        CatalogueFile opened = CatalogueFile.open(file);
+        hydrateAll(); // at most one file attached at a time
+        catalogue = opened;
+        if (verbose) {
+            System.out.printf("✓ Opened catalogue %s with %d products%n", file, opened.size());
+        }
+    }
+
+    // Bring one product in from the attached catalogue file; null when the file does not have it
+    private StockRecord hydrate(String productId) {
+        CatalogueFile file = catalogue;
+        if (file == null) {
+            return null;
+        }
+        int slot = file.find(productId);
+        return slot < 0 ? null : hydrate(file, slot, productId);
+    }
+
+    private StockRecord hydrate(CatalogueFile file, int slot, String productId) {
+        // No stock event or alert check: the product's stock has not changed
+        return records.computeIfAbsent(productId, id -> {
+            StockRecord record = file.read(slot);
+            record.getProduct().refreshPrices();
+            record.indexEntry = index.add(record);
+            return record;
+        });
+    }
+
+    // Bring in everything still in the attached catalogue file, then detach it
+    private void hydrateAll() {
+        CatalogueFile file = catalogue;
+        if (file == null) {
+            return;
+        }
+        synchronized (file) {
+            if (catalogue != file) {
+                return; // another thread finished it
+            }
+            for (int slot = 0, count = file.size(); slot < count; slot++) {
+                String productId = file.productId(slot);
+                if (!records.containsKey(productId)) {
+                    hydrate(file, slot, productId);
+                }
+            }
+            catalogue = null;
+        }
+    }
+}
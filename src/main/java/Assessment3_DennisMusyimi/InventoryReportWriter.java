@@ -0,0 +1,219 @@
+package Assessment3_DennisMusyimi;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Renders the inventory table for any number of products. Each row is built
+ * in a reused StringBuilder (padding by hand, no String.format) and copied into
+ * a page buffer that goes to the Writer or channel when full, so memory stays
+ * flat and the output starts before the last row is read.
+ *
+ * An unsorted report streams straight from the records with live stock levels.
+ * A sorted one first snapshots the matching rows (stock and price as of that
+ * moment) and sorts the snapshot. One writer renders one report at a time.
+ */
+final class InventoryReportWriter {
+    private static final int PAGE_CHARS = 1 << 16;
+    private static final String NEWLINE = System.lineSeparator();
+    private static final String HEADER = NEWLINE
+        + "╔══════════════════════════════════════════════════════════╗" + NEWLINE
+        + "║                    INVENTORY SUMMARY                    ║" + NEWLINE
+        + "╠══════════════════════════════════════════════════════════╣" + NEWLINE
+        + "║ Product ID      ║ Name                 ║ Type       ║ Stock    ║" + NEWLINE
+        + "╠═════════════════╬══════════════════════╬════════════╬══════════╣" + NEWLINE;
+    private static final String EMPTY = "║                     No products in inventory                      ║" + NEWLINE;
+    private static final String FOOTER = "╚═════════════════╩══════════════════════╩════════════╩══════════╝" + NEWLINE;
+
+    enum SortOrder {
+        NONE(null),
+        PRODUCT_ID(Comparator.comparing(row -> row.product.getProductId())),
+        NAME(Comparator.<Row, String>comparing(row -> row.product.getName(), String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(row -> row.product.getProductId())),
+        STOCK(Comparator.<Row>comparingInt(row -> row.stock).thenComparing(row -> row.product.getProductId())),
+        PRICE(Comparator.<Row>comparingDouble(row -> row.price).thenComparing(row -> row.product.getProductId()));
+
+        private final Comparator<Row> comparator;
+
+        SortOrder(Comparator<Row> comparator) {
+            this.comparator = comparator;
+        }
+    }
+
+    // A sorted report's snapshot of one product
+    private static final class Row {
+        final Product product;
+        final int stock;
+        final double price;
+
+        Row(Product product, int stock, double price) {
+            this.product = product;
+            this.stock = stock;
+            this.price = price;
+        }
+    }
+
+    private final SortOrder order;
+    private final String productType;
+    private final StringBuilder row = new StringBuilder(128);
+    private final char[] page = new char[PAGE_CHARS];
+    private int pageLength;
+
+    /**
+     * @param order row order (stock lowest first, price lowest first)
+     * @param productType only this type (case-insensitive), or null for every product
+     */
+    InventoryReportWriter(SortOrder order, String productType) {
+        this.order = order != null ? order : SortOrder.NONE;
+        this.productType = productType;
+    }
+
+    /**
+     * Write the report; the Writer is flushed, not closed
+     * @return number of product rows written
+     */
+    long write(Iterable<StockRecord> records, Writer out) throws IOException {
+        long rows = render(records, () -> {
+            out.write(page, 0, pageLength);
+            return 0;
+        });
+        out.flush();
+        return rows;
+    }
+
+    /**
+     * Write the report as UTF-8; the channel is not closed
+     * @return number of product rows written
+     */
+    long write(Iterable<StockRecord> records, WritableByteChannel out) throws IOException {
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocate((int) (PAGE_CHARS * encoder.maxBytesPerChar()));
+        CharBuffer chars = CharBuffer.wrap(page);
+        return render(records, () -> {
+            chars.limit(pageLength).position(0);
+            CoderResult result;
+            do {
+                result = encoder.encode(chars, bytes, false);
+                bytes.flip();
+                while (bytes.hasRemaining()) {
+                    out.write(bytes);
+                }
+                bytes.clear();
+            } while (result.isOverflow());
+            // A surrogate pair split across pages stays in chars; carry it to the next page
+            int carried = chars.remaining();
+            System.arraycopy(page, chars.position(), page, 0, carried);
+            return carried;
+        });
+    }
+
+    // Sends page[0, pageLength); returns how many chars it moved to the front of the page unsent
+    private interface PageSink {
+        int send() throws IOException;
+    }
+
+    private long render(Iterable<StockRecord> records, PageSink sink) throws IOException {
+        pageLength = 0;
+        append(HEADER, sink);
+        long count = 0;
+        if (order == SortOrder.NONE) {
+            for (StockRecord record : records) {
+                Product product = record.getProduct();
+                if (matches(product)) {
+                    appendRow(product, record.getAvailable(), sink);
+                    count++;
+                }
+            }
+        } else {
+            List<Row> rows = new ArrayList<>();
+            for (StockRecord record : records) {
+                Product product = record.getProduct();
+                if (matches(product)) {
+                    rows.add(new Row(product, record.getAvailable(), product.getBasePrice()));
+                }
+            }
+            rows.sort(order.comparator);
+            for (Row snapshot : rows) {
+                appendRow(snapshot.product, snapshot.stock, sink);
+            }
+            count = rows.size();
+        }
+        if (count == 0) {
+            append(EMPTY, sink);
+        }
+        append(FOOTER, sink);
+        send(sink);
+        return count;
+    }
+
+    private boolean matches(Product product) {
+        return productType == null || product.getProductType().equalsIgnoreCase(productType);
+    }
+
+    // Same layout as "║ %-15s ║ %-20s ║ %-10s ║ %8d ║"
+    private void appendRow(Product product, int stock, PageSink sink) throws IOException {
+        row.setLength(0);
+        row.append("║ ");
+        padRight(product.getProductId(), 15);
+        row.append(" ║ ");
+        padRight(product.getName(), 20);
+        row.append(" ║ ");
+        padRight(product.getProductType(), 10);
+        row.append(" ║ ");
+        for (int width = digits(stock); width < 8; width++) {
+            row.append(' ');
+        }
+        row.append(stock).append(" ║").append(NEWLINE);
+        append(row, sink);
+    }
+
+    private void padRight(String value, int width) {
+        row.append(value);
+        for (int i = value.length(); i < width; i++) {
+            row.append(' ');
+        }
+    }
+
+    private static int digits(int value) {
+        int digits = value < 0 ? 2 : 1;
+        for (long rest = Math.abs((long) value); rest >= 10; rest /= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private void append(CharSequence text, PageSink sink) throws IOException {
+        int length = text.length();
+        for (int offset = 0; offset < length; ) {
+            if (pageLength == page.length) {
+                send(sink);
+            }
+            int chunk = Math.min(length - offset, page.length - pageLength);
+            if (text instanceof StringBuilder) {
+                ((StringBuilder) text).getChars(offset, offset + chunk, page, pageLength);
+            } else {
+                ((String) text).getChars(offset, offset + chunk, page, pageLength);
+            }
+            pageLength += chunk;
+            offset += chunk;
+        }
+    }
+
+    private void send(PageSink sink) throws IOException {
+        if (pageLength > 0) {
+            pageLength = sink.send();
+        }
+    }
+}
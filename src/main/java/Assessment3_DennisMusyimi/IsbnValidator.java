@@ -0,0 +1,92 @@
+package Assessment3_DennisMusyimi;
+
+/**
+ * ISBN-10 and ISBN-13 checking in one pass over the characters, without
+ * allocating. Digits may be separated by hyphens anywhere; an ISBN-10 may end
+ * in 'X' (check value 10). A valid ISBN is normalized to its ISBN-13 number,
+ * so "0-306-40615-2" and "978-0-306-40615-7" have the same key and books can
+ * be looked up by a long rather than a string.
+ */
+final class IsbnValidator {
+    // toKey results for rejected input; valid keys are never negative
+    static final long INVALID_FORMAT = -1;
+    static final long INVALID_CHECK_DIGIT = -2;
+
+    private IsbnValidator() {
+    }
+
+    static boolean isValid(CharSequence isbn) {
+        return toKey(isbn) >= 0;
+    }
+
+    /**
+     * The ISBN as a 13-digit number, or INVALID_FORMAT / INVALID_CHECK_DIGIT
+     */
+    static long toKey(CharSequence isbn) {
+        if (isbn == null) {
+            return INVALID_FORMAT;
+        }
+        long number = 0;    // the digits read so far, check digit included
+        int digits = 0;
+        int sum10 = 0;      // ISBN-10 weights 10..1 over all digits
+        int sum13 = 0;      // ISBN-13 weights 1,3,1,3... over all digits
+        boolean endsInX = false;
+        for (int i = 0, length = isbn.length(); i < length; i++) {
+            char c = isbn.charAt(i);
+            if (c == '-') {
+                continue;
+            }
+            int value;
+            if (c >= '0' && c <= '9') {
+                value = c - '0';
+            } else if ((c == 'X' || c == 'x') && digits == 9) {
+                value = 10;
+                endsInX = true;
+            } else {
+                return INVALID_FORMAT;
+            }
+            if (endsInX && value != 10 || digits == 13) {
+                return INVALID_FORMAT; // X was not the last character, or too many digits
+            }
+            number = number * 10 + value;
+            sum10 += (10 - digits) * value;
+            sum13 += (digits & 1) == 0 ? value : 3 * value;
+            digits++;
+        }
+
+        if (digits == 10) {
+            if (sum10 % 11 != 0) {
+                return INVALID_CHECK_DIGIT;
+            }
+            // 978 prefix plus the first nine digits, with the ISBN-13 check digit recomputed
+            long body = 978_000_000_000L + (endsInX ? (number - 10) / 10 : number / 10);
+            return body * 10 + checkDigit13(body);
+        }
+        if (digits == 13) {
+            long prefix = number / 10_000_000_000L;
+            if (prefix != 978 && prefix != 979) {
+                return INVALID_FORMAT;
+            }
+            return sum13 % 10 == 0 ? number : INVALID_CHECK_DIGIT;
+        }
+        return INVALID_FORMAT;
+    }
+
+    /**
+     * The key in the usual hyphen-free ISBN-13 form
+     */
+    static String format(long key) {
+        return String.format("%013d", key);
+    }
+
+    // Check digit for the first twelve digits of an ISBN-13
+    private static long checkDigit13(long twelveDigits) {
+        int sum = 0;
+        for (int position = 11; position >= 0; position--) {
+            int digit = (int) (twelveDigits % 10);
+            sum += (position & 1) == 0 ? digit : 3 * digit;
+            twelveDigits /= 10;
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
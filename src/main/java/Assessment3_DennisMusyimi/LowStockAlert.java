@@ -0,0 +1,31 @@
+package Assessment3_DennisMusyimi;
+
+/**
+ * A product whose available stock has stayed at or below its low-stock
+ * threshold for the debounce delay set with InventoryManager.setLowStockAlerts
+ */
+final class LowStockAlert {
+    private final Product product;
+    private final int available;
+    private final int threshold;
+    private final long timeMillis;
+
+    LowStockAlert(Product product, int available, int threshold, long timeMillis) {
+        this.product = product;
+        this.available = available;
+        this.threshold = threshold;
+        this.timeMillis = timeMillis;
+    }
+
+    String getProductId() { return product.getProductId(); }
+    Product getProduct() { return product; }
+    int getAvailable() { return available; }
+    int getThreshold() { return threshold; }
+    long getTimeMillis() { return timeMillis; }
+
+    @Override
+    public String toString() {
+        return String.format("Low stock: %s (%s) has %d left, threshold %d",
+                             product.getProductId(), product.getName(), available, threshold);
+    }
+}
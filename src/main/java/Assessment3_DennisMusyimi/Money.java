@@ -0,0 +1,43 @@
+package Assessment3_DennisMusyimi;
+
+/**
+ * Fixed-point money helpers. Amounts are carried as a primitive long
+ * number of cents, so arithmetic on the posting path never allocates.
+ */
+final class Money {
+    static final long CENTS_PER_UNIT = 100;
+
+    private Money() {
+    }
+
+    /**
+     * Convert a dollar amount to cents, rounding HALF_UP on the decimal value
+     * the double prints as - the same result as
+     * BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP), without the allocation.
+     * Exact while the amount is well below 2^53 cents (about $9e13); callers bound
+     * what they convert (MAX_TRANSACTION, MAX_INITIAL_BALANCE).
+     */
+    static long toCents(double amount) {
+        double magnitude = Math.abs(amount);
+        double scaled = magnitude * CENTS_PER_UNIT;
+        long whole = (long) scaled;
+        double fraction = scaled - whole;
+
+        long cents;
+        if (Math.abs(fraction - 0.5) > 4 * Math.ulp(scaled)) {
+            cents = fraction > 0.5 ? whole + 1 : whole;
+        } else {
+            // Within rounding error of half a cent: compare against the double nearest the exact tie
+            double tie = (whole + 0.5) / CENTS_PER_UNIT;
+            cents = magnitude >= tie ? whole + 1 : whole;
+        }
+        return amount < 0 ? -cents : cents;
+    }
+
+    /**
+     * Convert cents back to a dollar amount for display and legacy getters
+     */
+    static double toDouble(long cents) {
+        return (double) cents / CENTS_PER_UNIT;
+    }
+}
@@ -0,0 +1,17 @@
+package Assessment3_DennisMusyimi;
+
+/**
+ * One line of a cart: a product and how many of it to buy
+ */
+final class OrderLine {
+    private final String productId;
+    private final int quantity;
+
+    OrderLine(String productId, int quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    String getProductId() { return productId; }
+    int getQuantity() { return quantity; }
+}
@@ -0,0 +1,26 @@
+package Assessment3_DennisMusyimi;
+
+// Custom Checked Exception for Out-of-Stock Requests
+class OutOfStockException extends Exception {
+    private String productId;
+    private int requestedQuantity;
+    private int availableQuantity;
+
+    public OutOfStockException(String message, String productId, int requestedQuantity, int availableQuantity) {
+        super(message);
+        this.productId = productId;
+        this.requestedQuantity = requestedQuantity;
+        this.availableQuantity = availableQuantity;
+    }
+
+    public String getProductId() { return productId; }
+    public int getRequestedQuantity() { return requestedQuantity; }
+    public int getAvailableQuantity() { return availableQuantity; }
+
+    @Override
+    public String toString() {
+        return super.toString() + 
+               String.format(" [Product: %s, Requested: %d, Available: %d]", 
+                           productId, requestedQuantity, availableQuantity);
+    }
+}
@@ -0,0 +1,190 @@
+package Assessment3_DennisMusyimi;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Abstract Base Class: Product
+abstract class Product {
+    protected String productId;
+    protected String name;
+    protected volatile double basePrice;
+    protected int categoryCode; // in CATEGORIES
+    protected static final double TAX_RATE = 0.08; // 8% tax rate
+    // Distinct categories, shared by every product
+    static final AttributeDictionary CATEGORIES = new AttributeDictionary("category", Integer.MAX_VALUE);
+
+    // Cached pricing: recomputed when the base price changes or the discount rules version moves on
+    private static volatile int pricingVersion;
+    private volatile Prices prices;
+    // Discount bands for this product's type and category under the installed rules
+    private DiscountRuleEngine.Bands discountBands;
+
+    // Discount and final price computed together, so readers always see a matching pair
+    private static final class Prices {
+        final double discount;
+        final double finalPrice;
+        final int version;
+
+        Prices(double discount, double finalPrice, int version) {
+            this.discount = discount;
+            this.finalPrice = finalPrice;
+            this.version = version;
+        }
+    }
+
+    public Product(String productId, String name, double basePrice, String category) {
+        validateProductId(productId);
+        validateName(name);
+        validatePrice(basePrice);
+        validateCategory(category);
+
+        this.productId = productId.trim();
+        this.name = name.trim();
+        this.basePrice = roundAmount(basePrice);
+        this.categoryCode = CATEGORIES.encode(category.trim());
+    }
+
+    // Abstract methods to be implemented by concrete classes
+    public abstract String getProductType();
+
+    /**
+     * Discount from the installed DiscountRuleEngine: one lookup in the band table
+     * for this product's type and category
+     */
+    public double calculateDiscount() {
+        DiscountRuleEngine engine = DiscountRuleEngine.getActive();
+        DiscountRuleEngine.Bands bands = discountBands;
+        if (bands == null || bands.engine != engine) {
+            bands = engine.bandsFor(getProductType(), getCategory());
+            discountBands = bands;
+        }
+        double rate = bands.rateFor(basePrice);
+        return rate == 0.0 ? 0.0 : roundAmount(basePrice * rate);
+    }
+
+    // Concrete methods
+    public double applyTax() {
+        return currentPrices().finalPrice;
+    }
+
+    /**
+     * The discount calculateDiscount() gives for the current base price, from the price cache
+     */
+    public double getDiscount() {
+        return currentPrices().discount;
+    }
+
+    /**
+     * Change the base price; the cached prices are recomputed at once.
+     * Package-private: products in an inventory are repriced through InventoryManager.reprice,
+     * which also moves them in the price index.
+     */
+    synchronized void setBasePrice(double newBasePrice) {
+        validatePrice(newBasePrice);
+        this.basePrice = roundAmount(newBasePrice);
+        this.prices = computePrices(pricingVersion);
+    }
+
+    /**
+     * Mark every product's cached prices stale; call after changing discount rules
+     */
+    public static synchronized void invalidatePrices() {
+        pricingVersion++;
+    }
+
+    /**
+     * Recompute this product's cached prices if they are stale
+     */
+    void refreshPrices() {
+        currentPrices();
+    }
+
+    /**
+     * Final price computed from scratch, bypassing the cache
+     */
+    double computeFinalPrice() {
+        double discountedPrice = basePrice - calculateDiscount();
+        return roundAmount(discountedPrice * (1 + TAX_RATE));
+    }
+
+    private Prices currentPrices() {
+        DiscountRuleEngine.checkDate(); // a new day invalidates every cached price
+        Prices current = prices;
+        int version = pricingVersion;
+        if (current == null || current.version != version) {
+            synchronized (this) {
+                current = prices;
+                if (current == null || current.version != version) {
+                    current = computePrices(version);
+                    prices = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Prices computePrices(int version) {
+        double discount = calculateDiscount();
+        return new Prices(discount, roundAmount((basePrice - discount) * (1 + TAX_RATE)), version);
+    }
+
+    public void displayProductInfo() {
+        System.out.println("╔══════════════════════════════════════════════╗");
+        System.out.printf("║ %-20s: %-20s ║%n", "Product ID", productId);
+        System.out.printf("║ %-20s: %-20s ║%n", "Name", name);
+        System.out.printf("║ %-20s: %-20s ║%n", "Type", getProductType());
+        System.out.printf("║ %-20s: %-20s ║%n", "Category", getCategory());
+        System.out.printf("║ %-20s: $%-19.2f ║%n", "Base Price", basePrice);
+        System.out.printf("║ %-20s: $%-19.2f ║%n", "Discount", getDiscount());
+        System.out.printf("║ %-20s: $%-19.2f ║%n", "Final Price (with tax)", applyTax());
+        displaySpecificInfo();
+        System.out.println("╚══════════════════════════════════════════════╝");
+    }
+
+    // Template method for subclasses to add specific information
+    protected abstract void displaySpecificInfo();
+
+    // Validation methods
+    private void validateProductId(String productId) {
+        if (productId == null || productId.trim().isEmpty()) {
+            throw new InvalidProductDataException("Product ID cannot be null or empty", "productId", productId);
+        }
+        if (productId.trim().length() < 3) {
+            throw new InvalidProductDataException("Product ID must be at least 3 characters", "productId", productId);
+        }
+    }
+
+    private void validateName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new InvalidProductDataException("Product name cannot be null or empty", "name", name);
+        }
+        if (name.trim().length() < 2) {
+            throw new InvalidProductDataException("Product name must be at least 2 characters", "name", name);
+        }
+    }
+
+    private void validatePrice(double price) {
+        if (price < 0) {
+            throw new InvalidProductDataException("Price cannot be negative", "price", String.valueOf(price));
+        }
+        if (Double.isNaN(price) || Double.isInfinite(price)) {
+            throw new InvalidProductDataException("Price must be a valid number", "price", String.valueOf(price));
+        }
+    }
+
+    private void validateCategory(String category) {
+        if (category == null || category.trim().isEmpty()) {
+            throw new InvalidProductDataException("Category cannot be null or empty", "category", category);
+        }
+    }
+
+    protected double roundAmount(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    // Getters
+    public String getProductId() { return productId; }
+    public String getName() { return name; }
+    public double getBasePrice() { return basePrice; }
+    public String getCategory() { return CATEGORIES.decode(categoryCode); }
+}
@@ -0,0 +1,18 @@
+package Assessment3_DennisMusyimi;
+
+// Custom Checked Exception for Unknown Products
+class ProductNotFoundException extends Exception {
+    private String productId;
+
+    public ProductNotFoundException(String message, String productId) {
+        super(message);
+        this.productId = productId;
+    }
+
+    public String getProductId() { return productId; }
+
+    @Override
+    public String toString() {
+        return super.toString() + " [Product ID: " + productId + "]";
+    }
+}
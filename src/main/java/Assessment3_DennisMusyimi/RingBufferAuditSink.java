@@ -0,0 +1,207 @@
+package Assessment3_DennisMusyimi;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous audit sink. Posting threads claim a slot in a lock-free
+ * multi-producer ring buffer and copy the event fields into preallocated
+ * columns; a background thread drains the ring to a file, one JSON object
+ * per line. Producers only wait when the ring is full. An idle drainer
+ * sleeps until a producer wakes it. Events recorded after close are dropped.
+ */
+class RingBufferAuditSink implements AuditSink, AutoCloseable {
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    // Longest idle sleep; bounds the delay when a wake-up races with the drainer going to sleep
+    private static final long IDLE_PARK_NANOS = 1_000_000_000L;
+    private static final long CLOSED = Long.MIN_VALUE; // set in nextSequence by close; later claims come out negative
+
+    // JSON escapes for U+0000..U+001F
+    private static final String[] CONTROL_ESCAPES = new String[0x20];
+
+    static {
+        for (int c = 0; c < CONTROL_ESCAPES.length; c++) {
+            CONTROL_ESCAPES[c] = String.format("\\u%04x", c);
+        }
+        CONTROL_ESCAPES['\b'] = "\\b";
+        CONTROL_ESCAPES['\t'] = "\\t";
+        CONTROL_ESCAPES['\n'] = "\\n";
+        CONTROL_ESCAPES['\f'] = "\\f";
+        CONTROL_ESCAPES['\r'] = "\\r";
+    }
+
+    private final int mask;
+    private final AtomicLongArray published; // slot holds sequence + 1 once its fields are written
+    private final byte[] kinds;
+    private final String[] accounts;
+    private final String[] targets;
+    private final long[] amounts;
+    private final long[] balances;
+    private final long[] targetBalances;
+    private final long[] timestamps;
+
+    private final AtomicLong nextSequence = new AtomicLong();
+    private volatile long consumed; // every sequence below this has been drained
+
+    private final Writer out;
+    private final Thread drainer;
+    private volatile boolean sleeping; // the drainer is parked, or about to be
+    private volatile long closedAt;    // sequences claimed before close; valid once closed
+    private volatile boolean closed;
+
+    public RingBufferAuditSink(Path file) throws IOException {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    public RingBufferAuditSink(Path file, int capacity) throws IOException {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.published = new AtomicLongArray(size);
+        this.kinds = new byte[size];
+        this.accounts = new String[size];
+        this.targets = new String[size];
+        this.amounts = new long[size];
+        this.balances = new long[size];
+        this.targetBalances = new long[size];
+        this.timestamps = new long[size];
+        this.out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND), 1 << 16);
+        this.drainer = new Thread(this::drain, "audit-drainer");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    @Override
+    public void record(Kind kind, String account, String target, long amountCents, long balanceCents, long targetBalanceCents) {
+        long sequence = nextSequence.getAndIncrement();
+        if (sequence < 0) {
+            return; // closed: nothing will drain it
+        }
+        while (sequence - consumed > mask) {
+            Thread.onSpinWait(); // ring is full: wait for the drainer to catch up (it drains every claim made before close)
+        }
+        int slot = (int) sequence & mask;
+        kinds[slot] = (byte) kind.ordinal();
+        accounts[slot] = account;
+        targets[slot] = target;
+        amounts[slot] = amountCents;
+        balances[slot] = balanceCents;
+        targetBalances[slot] = targetBalanceCents;
+        timestamps[slot] = System.currentTimeMillis();
+        published.setRelease(slot, sequence + 1);
+        if (sleeping) {
+            LockSupport.unpark(drainer);
+        }
+    }
+
+    /**
+     * Drain everything already recorded, then close the file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closedAt = nextSequence.getAndUpdate(next -> next | CLOSED);
+        closed = true;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.close();
+    }
+
+    private void drain() {
+        Kind[] kindValues = Kind.values();
+        StringBuilder line = new StringBuilder(160);
+        boolean writable = true;
+        boolean unflushed = false;
+        while (true) {
+            long sequence = consumed;
+            int slot = (int) sequence & mask;
+            if (published.getAcquire(slot) != sequence + 1) {
+                if (closed && sequence == closedAt) {
+                    break;
+                }
+                if (unflushed) {
+                    // Caught up: flush once, then sleep until a producer (or close) wakes us
+                    writable = writable && write(null);
+                    unflushed = false;
+                    continue;
+                }
+                sleeping = true;
+                if (published.getAcquire(slot) != sequence + 1 && !closed) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                sleeping = false;
+                continue;
+            }
+
+            if (writable) {
+                line.setLength(0);
+                line.append("{\"ts\":").append(timestamps[slot])
+                    .append(",\"type\":\"").append(kindValues[kinds[slot]]).append('"')
+                    .append(",\"account\":\"");
+                appendEscaped(line, accounts[slot]).append('"');
+                if (targets[slot] != null) {
+                    line.append(",\"target\":\"");
+                    appendEscaped(line, targets[slot]).append('"');
+                }
+                line.append(",\"amountCents\":").append(amounts[slot])
+                    .append(",\"balanceCents\":").append(balances[slot]);
+                if (targets[slot] != null) {
+                    line.append(",\"targetBalanceCents\":").append(targetBalances[slot]);
+                }
+                line.append("}\n");
+                writable = write(line);
+                unflushed = true;
+            }
+
+            accounts[slot] = null;
+            targets[slot] = null;
+            consumed = sequence + 1;
+        }
+        if (writable) {
+            write(null);
+        }
+    }
+
+    private static StringBuilder appendEscaped(StringBuilder line, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append(CONTROL_ESCAPES[c]);
+            } else {
+                line.append(c);
+            }
+        }
+        return line;
+    }
+
+    // Append a line (or just flush when null); after a failure events are still consumed so producers never block
+    private boolean write(CharSequence line) {
+        try {
+            if (line != null) {
+                out.append(line);
+            } else {
+                out.flush();
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("❌ Audit log write failed, dropping further events: " + e.getMessage());
+            return false;
+        }
+    }
+}
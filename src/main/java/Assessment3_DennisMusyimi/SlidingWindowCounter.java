@@ -0,0 +1,73 @@
+package Assessment3_DennisMusyimi;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Rolling total over a fixed time window, kept as a ring of time buckets
+ * plus a running sum. Adding and reading are O(1) (at most one pass over the
+ * buckets after a long idle gap) and never allocate.
+ *
+ * There is one more slot than buckets in the window. The oldest slot's bucket
+ * has partly slid out of the window, and it stays in the total until all of it
+ * has. A value therefore counts for at least the full window and at most one
+ * bucket longer, so a limit checked against the sum is never exceeded early.
+ *
+ * Not thread-safe: a BankAccount only touches its counters while holding its stripe.
+ */
+final class SlidingWindowCounter {
+    private final long bucketMillis;
+    private final long[] buckets; // bucketCount + 1 slots
+    private long newestBucket; // absolute bucket number (time / bucketMillis) of the newest slot
+    private long total;
+
+    SlidingWindowCounter(Duration window, int bucketCount) {
+        if (bucketCount < 1 || window.toMillis() < bucketCount) {
+            throw new IllegalArgumentException("Window must cover at least one millisecond per bucket");
+        }
+        this.bucketMillis = window.toMillis() / bucketCount;
+        this.buckets = new long[bucketCount + 1];
+    }
+
+    /**
+     * Total of everything added within the window ending at nowMillis, plus anything
+     * added up to one bucket before it (never less than the true rolling total)
+     */
+    long sum(long nowMillis) {
+        advance(nowMillis);
+        return total;
+    }
+
+    void add(long nowMillis, long value) {
+        advance(nowMillis);
+        buckets[(int) Math.floorMod(newestBucket, (long) buckets.length)] += value;
+        total += value;
+    }
+
+    // Expire the buckets that slid out of the window; a clock that steps back counts into the newest bucket
+    private void advance(long nowMillis) {
+        long bucket = Math.floorDiv(nowMillis, bucketMillis);
+        if (bucket <= newestBucket) {
+            return;
+        }
+        if (total == 0) {
+            // Values are never negative, so every bucket is already empty
+            newestBucket = bucket;
+            return;
+        }
+        long gap = bucket - newestBucket;
+        if (gap >= buckets.length) {
+            // Idle for a whole window: nothing is left in it
+            Arrays.fill(buckets, 0);
+            total = 0;
+        } else {
+            int slot = (int) Math.floorMod(newestBucket, (long) buckets.length);
+            for (int i = 0; i < gap; i++) {
+                slot = slot + 1 == buckets.length ? 0 : slot + 1;
+                total -= buckets[slot];
+                buckets[slot] = 0;
+            }
+        }
+        newestBucket = bucket;
+    }
+}
@@ -0,0 +1,26 @@
+package Assessment3_DennisMusyimi;
+
+/**
+ * Net change to one product's available stock since the last batch a
+ * subscriber received, and the level when the batch was assembled
+ */
+final class StockChange {
+    private final String productId;
+    private final int delta;
+    private final int available;
+
+    StockChange(String productId, int delta, int available) {
+        this.productId = productId;
+        this.delta = delta;
+        this.available = available;
+    }
+
+    String getProductId() { return productId; }
+    int getDelta() { return delta; }
+    int getAvailable() { return available; }
+
+    @Override
+    public String toString() {
+        return String.format("%s %+d (now %d)", productId, delta, available);
+    }
+}
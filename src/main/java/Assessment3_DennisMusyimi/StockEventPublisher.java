@@ -0,0 +1,225 @@
+package Assessment3_DennisMusyimi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stock-change feed for an InventoryManager. Each subscriber receives batches
+ * of per-product net deltas, only as many batches as it has requested.
+ *
+ * Stock changes never wait for subscribers. A change adds its delta to the
+ * subscriber's running total for that product and, if the product is not
+ * already queued, queues it once. While a subscriber has no demand its totals
+ * keep coalescing in place, so what is buffered is bounded by the number of
+ * products, not the number of changes. Batches are assembled and delivered on
+ * the executor the subscriber was subscribed with, one task at a time per
+ * subscriber, and every signal to a subscriber (onError included) comes from
+ * that task, so signals never overlap.
+ */
+final class StockEventPublisher {
+    private static final StockSubscription[] NONE = new StockSubscription[0];
+
+    private final int maxBatchSize;
+    private volatile StockSubscription[] subscriptions = NONE; // copy-on-write
+
+    StockEventPublisher(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Subscribe with the executor that runs this subscriber's deliveries
+     */
+    void subscribe(Flow.Subscriber<? super List<StockChange>> subscriber, Executor executor) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        StockSubscription subscription = new StockSubscription(subscriber, Objects.requireNonNull(executor, "executor"));
+        boolean duplicate = false;
+        synchronized (this) {
+            for (StockSubscription existing : subscriptions) {
+                duplicate |= existing.subscriber.equals(subscriber);
+            }
+            if (!duplicate) {
+                StockSubscription[] grown = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+                grown[grown.length - 1] = subscription;
+                subscriptions = grown;
+            }
+        }
+        if (duplicate) {
+            subscription.cancelled = true;
+            subscriber.onSubscribe(subscription);
+            subscriber.onError(new IllegalStateException("Already subscribed"));
+            return;
+        }
+        subscriber.onSubscribe(subscription);
+    }
+
+    boolean hasSubscribers() {
+        return subscriptions.length > 0;
+    }
+
+    int getSubscriberCount() {
+        return subscriptions.length;
+    }
+
+    /**
+     * Record a change to a product's available stock; called by InventoryManager after the change
+     */
+    void stockChanged(StockRecord record, int delta) {
+        StockSubscription[] current = subscriptions;
+        for (StockSubscription subscription : current) {
+            subscription.add(record, delta);
+        }
+    }
+
+    private synchronized void remove(StockSubscription subscription) {
+        StockSubscription[] current = subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscription) {
+                StockSubscription[] shrunk = Arrays.copyOf(current, current.length - 1);
+                System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+                subscriptions = shrunk;
+                return;
+            }
+        }
+    }
+
+    // One product's running delta for one subscriber
+    private static final class Pending {
+        static final AtomicIntegerFieldUpdater<Pending> DELTA =
+            AtomicIntegerFieldUpdater.newUpdater(Pending.class, "delta");
+        static final AtomicIntegerFieldUpdater<Pending> QUEUED =
+            AtomicIntegerFieldUpdater.newUpdater(Pending.class, "queued");
+
+        final String productId;
+        volatile StockRecord record; // latest record for the product, for the level reported with the delta
+        volatile int delta;
+        volatile int queued;         // 1 while in the subscription's ready queue
+
+        Pending(StockRecord record) {
+            this.productId = record.getProduct().getProductId();
+            this.record = record;
+        }
+    }
+
+    private final class StockSubscription implements Flow.Subscription {
+        final Flow.Subscriber<? super List<StockChange>> subscriber;
+        final Executor executor;
+        final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<>();
+        final ConcurrentLinkedQueue<Pending> ready = new ConcurrentLinkedQueue<>(); // each product at most once
+        final AtomicLong demand = new AtomicLong();
+        final AtomicInteger work = new AtomicInteger(); // drain requests; non-zero while a drain is scheduled
+        volatile boolean cancelled;
+        volatile Throwable error; // to signal from the drain, then stop
+
+        StockSubscription(Flow.Subscriber<? super List<StockChange>> subscriber, Executor executor) {
+            this.subscriber = subscriber;
+            this.executor = executor;
+        }
+
+        void add(StockRecord record, int delta) {
+            Pending entry = pending.get(record.getProduct().getProductId());
+            if (entry == null) {
+                entry = pending.computeIfAbsent(record.getProduct().getProductId(), productId -> new Pending(record));
+            }
+            if (entry.record != record) {
+                entry.record = record; // the product was re-added
+            }
+            Pending.DELTA.addAndGet(entry, delta);
+            if (entry.queued == 0 && Pending.QUEUED.compareAndSet(entry, 0, 1)) {
+                ready.offer(entry);
+                signal();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // Signalled from the drain: a delivery may be running right now
+                if (error == null) {
+                    error = new IllegalArgumentException("Requested " + n + " batches; must be positive");
+                }
+                signal();
+                return;
+            }
+            demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            remove(this);
+            ready.clear();
+            pending.clear();
+        }
+
+        void signal() {
+            if (work.getAndIncrement() == 0 && !cancelled) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // No drain is running or can start while work is held, so this is the only signal in flight
+                    cancel();
+                    try {
+                        subscriber.onError(e);
+                    } catch (RuntimeException ignored) {
+                        // the stock change that got here must not fail because of a subscriber
+                    }
+                }
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                Throwable failure = error;
+                if (failure != null && !cancelled) {
+                    cancel();
+                    subscriber.onError(failure);
+                    return;
+                }
+                while (!cancelled && demand.get() > 0 && !ready.isEmpty()) {
+                    List<StockChange> batch = nextBatch();
+                    if (batch.isEmpty()) {
+                        continue; // every queued delta had netted out to zero
+                    }
+                    demand.decrementAndGet();
+                    try {
+                        subscriber.onNext(batch);
+                    } catch (RuntimeException e) {
+                        cancel();
+                        subscriber.onError(e);
+                        return;
+                    }
+                }
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private List<StockChange> nextBatch() {
+            List<StockChange> batch = new ArrayList<>(Math.min(maxBatchSize, 64));
+            Pending entry;
+            while (batch.size() < maxBatchSize && (entry = ready.poll()) != null) {
+                // Unqueue before taking the delta: a change landing in between queues the product again
+                entry.queued = 0;
+                int delta = Pending.DELTA.getAndSet(entry, 0);
+                if (delta != 0) {
+                    batch.add(new StockChange(entry.productId, delta, entry.record.getAvailable()));
+                }
+            }
+            return batch;
+        }
+    }
+}
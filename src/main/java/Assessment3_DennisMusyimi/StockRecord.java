@@ -0,0 +1,89 @@
+package Assessment3_DennisMusyimi;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * One inventory entry: the product and its stock counters, found with a
+ * single lookup. The counters are plain volatile ints updated through field
+ * updaters, so a stock change neither boxes nor allocates.
+ */
+final class StockRecord {
+    private static final AtomicIntegerFieldUpdater<StockRecord> AVAILABLE =
+        AtomicIntegerFieldUpdater.newUpdater(StockRecord.class, "available");
+    private static final AtomicIntegerFieldUpdater<StockRecord> RESERVED =
+        AtomicIntegerFieldUpdater.newUpdater(StockRecord.class, "reserved");
+    private static final AtomicIntegerFieldUpdater<StockRecord> LOW_STOCK_STATE =
+        AtomicIntegerFieldUpdater.newUpdater(StockRecord.class, "lowStockState");
+
+    static final int NO_THRESHOLD = -1;
+    // Low-stock alert states: ARMED until stock falls to the threshold, PENDING while the
+    // debounce delay runs, ALERTED once delivered until stock climbs back above the threshold
+    static final int ARMED = 0;
+    static final int PENDING = 1;
+    static final int ALERTED = 2;
+
+    private final Product product;
+    private volatile int available; // can be sold
+    private volatile int reserved;  // held by unexpired reservations
+    private volatile int lowStockThreshold = NO_THRESHOLD; // alert at or below this many available
+    private volatile int lowStockState = ARMED;
+    // This record's entry in the catalogue index; only touched inside the records map's compute for this product
+    CatalogueIndex.Entry indexEntry;
+
+    StockRecord(Product product, int initialStock) {
+        this.product = product;
+        this.available = initialStock;
+    }
+
+    Product getProduct() { return product; }
+    int getAvailable() { return available; }
+    int getReserved() { return reserved; }
+    int getLowStockThreshold() { return lowStockThreshold; }
+    int getLowStockState() { return lowStockState; }
+
+    void setLowStockThreshold(int threshold) {
+        this.lowStockThreshold = threshold;
+    }
+
+    boolean moveLowStockState(int from, int to) {
+        return LOW_STOCK_STATE.compareAndSet(this, from, to);
+    }
+
+    /**
+     * Check and take stock in one atomic step so concurrent buyers cannot oversell
+     * @return the available stock before the quantity was taken
+     */
+    int take(int quantity, String message) throws OutOfStockException {
+        int current;
+        do {
+            current = available;
+            if (current < quantity) {
+                throw new OutOfStockException(message, product.getProductId(), quantity, current);
+            }
+        } while (!AVAILABLE.compareAndSet(this, current, current - quantity));
+        return current;
+    }
+
+    /**
+     * Add (or with a negative delta remove) stock, never going below zero
+     * @return the available stock before the change, or -1 when it would go negative
+     */
+    int adjust(int delta) {
+        int current;
+        do {
+            current = available;
+            if (current + delta < 0) {
+                return -1;
+            }
+        } while (!AVAILABLE.compareAndSet(this, current, current + delta));
+        return current;
+    }
+
+    void release(int quantity) {
+        AVAILABLE.addAndGet(this, quantity);
+    }
+
+    void addReserved(int delta) {
+        RESERVED.addAndGet(this, delta);
+    }
+}
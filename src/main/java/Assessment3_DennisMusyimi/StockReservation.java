@@ -0,0 +1,41 @@
+package Assessment3_DennisMusyimi;
+
+/**
+ * A timed hold on stock, returned by InventoryManager.reserveStock.
+ * The held quantity leaves the available stock at once; it is sold when the
+ * reservation is confirmed, or goes back when it is cancelled or expires.
+ */
+final class StockReservation extends TimingWheel.Timer {
+    enum State { ACTIVE, CONFIRMED, CANCELLED, EXPIRED }
+
+    private final StockRecord record;
+    private final int quantity;
+    private final long expiresAtMillis;
+    private volatile State state = State.ACTIVE; // changed only under the owning InventoryManager's reservation lock
+
+    StockReservation(StockRecord record, int quantity, long expiresAtMillis) {
+        this.record = record;
+        this.quantity = quantity;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    // Move out of ACTIVE; the held units become sold (released = false) or available again
+    boolean finish(State outcome, boolean release) {
+        if (state != State.ACTIVE) {
+            return false;
+        }
+        state = outcome;
+        record.addReserved(-quantity);
+        if (release) {
+            record.release(quantity);
+        }
+        return true;
+    }
+
+    public String getProductId() { return record.getProduct().getProductId(); }
+    Product getProduct() { return record.getProduct(); }
+    StockRecord getRecord() { return record; }
+    public int getQuantity() { return quantity; }
+    public long getExpiresAtMillis() { return expiresAtMillis; }
+    public State getState() { return state; }
+}
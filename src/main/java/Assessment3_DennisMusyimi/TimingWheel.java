@@ -0,0 +1,155 @@
+package Assessment3_DennisMusyimi;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel (after Varghese and Lauck): LEVELS wheels of
+ * SLOTS buckets, each level's bucket spanning a full turn of the level below.
+ * Scheduling and cancelling are O(1) list operations; advancing one tick
+ * expires one bucket and, once per turn, cascades a bucket of the next level
+ * down. Deadlines beyond the top level's range wait in its last bucket and
+ * are re-filed as time approaches them.
+ *
+ * Not thread-safe: callers serialize access (InventoryManager holds its monitor).
+ */
+final class TimingWheel {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    /**
+     * Something that can be scheduled on a wheel; the links make cancellation O(1)
+     */
+    abstract static class Timer {
+        private long deadlineTick;
+        private Timer prev;
+        private Timer next;
+        private int bucket = -1; // level * SLOTS + slot, or -1 when not scheduled
+
+        final boolean isScheduled() {
+            return bucket >= 0;
+        }
+    }
+
+    private final long tickMillis;
+    private final Timer[] buckets = new Timer[LEVELS * SLOTS];
+    private long currentTick; // every tick up to and including this one has been expired
+    private int size;
+
+    TimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("Tick must be at least one millisecond");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedule a timer to expire at the first tick at or after deadlineMillis
+     */
+    void schedule(Timer timer, long deadlineMillis) {
+        if (timer.isScheduled()) {
+            throw new IllegalStateException("Timer is already scheduled");
+        }
+        // Round up so a timer never fires early; a deadline already passed fires on the next tick
+        timer.deadlineTick = Math.max(currentTick + 1, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        file(timer);
+        size++;
+    }
+
+    /**
+     * Remove a scheduled timer; does nothing when it is not scheduled
+     */
+    void cancel(Timer timer) {
+        if (timer.isScheduled()) {
+            unlink(timer);
+            size--;
+        }
+    }
+
+    /**
+     * Expire every timer whose deadline tick is at or before nowMillis
+     * @return number of timers expired
+     */
+    int advance(long nowMillis, Consumer<? super Timer> onExpiry) {
+        long targetTick = nowMillis / tickMillis;
+        int expired = 0;
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick; // nothing to fire or cascade on the way
+                break;
+            }
+            currentTick++;
+            // Cascade from the highest level whose turn completes now, so entries can fall several levels
+            for (int level = LEVELS - 1; level >= 1; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    refile(level * SLOTS + (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK));
+                }
+            }
+            int slot = (int) (currentTick & SLOT_MASK);
+            Timer timer = buckets[slot];
+            while (timer != null) {
+                Timer next = timer.next;
+                unlink(timer);
+                size--;
+                expired++;
+                onExpiry.accept(timer);
+                timer = next;
+            }
+        }
+        return expired;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void refile(int bucket) {
+        Timer timer = buckets[bucket];
+        buckets[bucket] = null;
+        while (timer != null) {
+            Timer next = timer.next;
+            timer.bucket = -1;
+            timer.prev = null;
+            timer.next = null;
+            file(timer);
+            timer = next;
+        }
+    }
+
+    private void file(Timer timer) {
+        long delta = timer.deadlineTick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        long tick = timer.deadlineTick;
+        if (delta >= 1L << (SLOT_BITS * LEVELS)) {
+            tick = currentTick + (1L << (SLOT_BITS * LEVELS)) - 1; // park at the far edge and re-file later
+        }
+        int bucket = level * SLOTS + (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        Timer head = buckets[bucket];
+        timer.next = head;
+        timer.prev = null;
+        if (head != null) {
+            head.prev = timer;
+        }
+        buckets[bucket] = timer;
+        timer.bucket = bucket;
+    }
+
+    private void unlink(Timer timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            buckets[timer.bucket] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+        timer.bucket = -1;
+    }
+}
@@ -0,0 +1,145 @@
+package Assessment3_DennisMusyimi;
+
+import java.util.List;
+
+/**
+ * Batch posting for BankAccount transactions.
+ * A batch is validated up front, then applied in chunks: every stripe a
+ * chunk touches is locked once (in ascending order), all of the chunk's
+ * items are applied, and the stripes are released. Failures are recorded
+ * as TxnStatus codes instead of exceptions and are not printed; each
+ * successful item is reported to the audit sink once its chunk is released.
+ */
+final class TransactionBatch {
+    // Bounds how long one chunk keeps its stripes away from other callers
+    static final int CHUNK_SIZE = 4096;
+
+    private TransactionBatch() {
+    }
+
+    /**
+     * Post all transactions in list order.
+     * @return one TxnStatus code per item (see TxnStatus.fromCode)
+     */
+    static byte[] postBatch(List<Txn> batch) {
+        int size = batch.size();
+        byte[] results = new byte[size];
+        long[] amountsCents = new long[size];
+
+        // Pass 1: validate everything without touching any lock
+        for (int i = 0; i < size; i++) {
+            TxnStatus status = validate(batch.get(i));
+            results[i] = status.code();
+            if (status == TxnStatus.OK) {
+                amountsCents[i] = Money.toCents(batch.get(i).getAmount());
+            }
+        }
+
+        // Pass 2: apply chunk by chunk under one acquisition per touched stripe
+        TransactionJournal journal = BankAccount.getJournal();
+        AuditSink audit = BankAccount.getAuditSink();
+        long[] balances = new long[Math.min(size, CHUNK_SIZE)];       // balances each item left, taken under the chunk's stripes
+        long[] targetBalances = new long[Math.min(size, CHUNK_SIZE)];
+        boolean[] touched = new boolean[AccountLocks.stripeCount()];
+        int[] stripes = new int[AccountLocks.stripeCount()];
+        for (int start = 0; start < size; start += CHUNK_SIZE) {
+            int end = Math.min(size, start + CHUNK_SIZE);
+            int count = collectStripes(batch, results, start, end, touched, stripes);
+            long lastSequence = 0;
+            AccountLocks.lockAll(stripes, count);
+            try {
+                for (int i = start; i < end; i++) {
+                    if (results[i] == TxnStatus.OK.code()) {
+                        Txn txn = batch.get(i);
+                        long sequence = apply(txn, amountsCents[i]);
+                        if (sequence < 0) {
+                            results[i] = BankAccount.rejection(sequence).code();
+                        } else {
+                            lastSequence = Math.max(lastSequence, sequence);
+                            balances[i - start] = txn.getAccount().getBalanceCents();
+                            targetBalances[i - start] = txn.getTarget() != null ? txn.getTarget().getBalanceCents() : 0;
+                        }
+                    }
+                }
+            } finally {
+                AccountLocks.unlockAll(stripes, count);
+            }
+            // One durability wait covers the whole chunk
+            if (journal != null && lastSequence > 0) {
+                journal.awaitDurable(lastSequence);
+            }
+            for (int i = start; i < end; i++) {
+                if (results[i] == TxnStatus.OK.code()) {
+                    Txn txn = batch.get(i);
+                    audit.record(kindOf(txn), txn.getAccount().getAccountNumber(),
+                                 txn.getTarget() != null ? txn.getTarget().getAccountNumber() : null,
+                                 amountsCents[i], balances[i - start], targetBalances[i - start]);
+                }
+            }
+        }
+        return results;
+    }
+
+    private static TxnStatus validate(Txn txn) {
+        if (txn == null || txn.getAccount() == null) {
+            return TxnStatus.ACCOUNT_NOT_FOUND;
+        }
+        if (!BankAccount.isValidAmount(txn.getAmount())) {
+            return TxnStatus.INVALID_AMOUNT;
+        }
+        if (txn.getType() == Txn.Type.TRANSFER) {
+            if (txn.getTarget() == null) {
+                return TxnStatus.ACCOUNT_NOT_FOUND;
+            }
+            if (txn.getAccount().getAccountNumber().equals(txn.getTarget().getAccountNumber())) {
+                return TxnStatus.SAME_ACCOUNT;
+            }
+        }
+        return TxnStatus.OK;
+    }
+
+    // Gather the distinct stripes of a chunk's valid items, sorted ascending
+    private static int collectStripes(List<Txn> batch, byte[] results, int start, int end,
+                                      boolean[] touched, int[] stripes) {
+        for (int i = start; i < end; i++) {
+            if (results[i] == TxnStatus.OK.code()) {
+                Txn txn = batch.get(i);
+                touched[txn.getAccount().getLockStripe()] = true;
+                if (txn.getTarget() != null) {
+                    touched[txn.getTarget().getLockStripe()] = true;
+                }
+            }
+        }
+        int count = 0;
+        for (int stripe = 0; stripe < touched.length; stripe++) {
+            if (touched[stripe]) {
+                stripes[count++] = stripe;
+                touched[stripe] = false;
+            }
+        }
+        return count;
+    }
+
+    private static AuditSink.Kind kindOf(Txn txn) {
+        switch (txn.getType()) {
+            case DEPOSIT:
+                return AuditSink.Kind.DEPOSIT;
+            case WITHDRAWAL:
+                return AuditSink.Kind.WITHDRAWAL;
+            default:
+                return AuditSink.Kind.TRANSFER;
+        }
+    }
+
+    // Returns the journal sequence (0 when not journaled) or a negative BankAccount.REJECTED_* code
+    private static long apply(Txn txn, long amountCents) {
+        switch (txn.getType()) {
+            case DEPOSIT:
+                return txn.getAccount().creditHeld(amountCents);
+            case WITHDRAWAL:
+                return txn.getAccount().debitHeld(amountCents);
+            default:
+                return txn.getAccount().transferHeld(txn.getTarget(), amountCents);
+        }
+    }
+}
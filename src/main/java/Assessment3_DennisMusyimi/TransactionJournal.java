@@ -0,0 +1,578 @@
+package Assessment3_DennisMusyimi;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead journal of successful BankAccount postings.
+ * Records are fixed width and written into memory-mapped segment files;
+ * segment i holds sequences [i * recordsPerSegment + 1, (i + 1) * recordsPerSegment].
+ *
+ * Record layout (96 bytes, big-endian):
+ *   0  long  sequence (0 marks unused space)
+ *   8  byte  type
+ *   9  byte  account number length
+ *  10  byte  target account number length
+ *  11  byte  continuation records that follow (openings only)
+ *  12  int   CRC32C of the other 92 bytes
+ *  16  long  amount in cents
+ *  24  32 bytes account number
+ *  56  32 bytes target account number (transfers only)
+ *  88  long  timestamp (epoch millis)
+ *
+ * An opening carries the opening balance as its amount and the account holder's
+ * UTF-8 name in place of the target; a name longer than 32 bytes continues in
+ * HOLDER records appended right after it. The group is written under one lock,
+ * and a group torn by a crash is dropped from the tail when the journal is opened.
+ */
+class TransactionJournal implements AutoCloseable {
+    static final byte DEPOSIT = 1;
+    static final byte WITHDRAWAL = 2;
+    static final byte TRANSFER = 3;
+    static final byte OPEN = 4;
+    static final byte HOLDER = 5;   // the rest of an OPEN record's account holder
+
+    static final int RECORD_SIZE = 96;
+    static final int MAX_ACCOUNT_BYTES = 32;
+    static final int MAX_HOLDER_BYTES = MAX_ACCOUNT_BYTES * 256; // an OPEN record and up to 255 HOLDER records
+    static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 20; // 96MB segments
+
+    private static final long GROUP_COMMIT_WINDOW_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    /**
+     * When appended records are forced to disk
+     */
+    enum FsyncPolicy {
+        /** every posting forces its own record before returning */
+        EVERY_RECORD,
+        /** postings wait for a background flusher that forces many records at once */
+        GROUP_COMMIT,
+        /** records reach disk whenever the OS writes the pages back (and on close) */
+        OS_DEFAULT
+    }
+
+    private final Path directory;
+    private final FsyncPolicy policy;
+    private final int recordsPerSegment;
+    private final List<MappedByteBuffer> segments = new ArrayList<>(); // index = segment number, null once deleted
+    private volatile int firstSegment; // oldest segment still on disk
+
+    // Append state, guarded by appendLock
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final byte[] scratch = new byte[RECORD_SIZE];
+    private final ByteBuffer scratchBuffer = ByteBuffer.wrap(scratch);
+    private final CRC32C crc = new CRC32C();
+    private volatile long lastSequence;
+
+    // Durability state, guarded by flushLock
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushRequested = flushLock.newCondition();
+    private final Condition durableAdvanced = flushLock.newCondition();
+    private volatile long durableSequence;
+    private volatile boolean closed;
+    private final Thread flusher;
+
+    private TransactionJournal(Path directory, FsyncPolicy policy, int recordsPerSegment) {
+        this.directory = directory;
+        this.policy = policy;
+        this.recordsPerSegment = recordsPerSegment;
+        this.flusher = policy == FsyncPolicy.GROUP_COMMIT ? new Thread(this::runFlusher, "journal-flusher") : null;
+    }
+
+    /**
+     * Open (or create) a journal directory and position it after the last valid record
+     */
+    public static TransactionJournal open(Path directory, FsyncPolicy policy) throws IOException {
+        return open(directory, policy, DEFAULT_RECORDS_PER_SEGMENT);
+    }
+
+    public static TransactionJournal open(Path directory, FsyncPolicy policy, int recordsPerSegment) throws IOException {
+        Files.createDirectories(directory);
+        TransactionJournal journal = new TransactionJournal(directory, policy, recordsPerSegment);
+        journal.mapExistingSegments();
+        long last = journal.scanForLastSequence();
+        journal.truncateAfter(last);
+        journal.lastSequence = last;
+        journal.durableSequence = journal.lastSequence;
+        if (journal.flusher != null) {
+            journal.flusher.setDaemon(true);
+            journal.flusher.start();
+        }
+        return journal;
+    }
+
+    /**
+     * Append one posting. Callers hold the stripe locks of the accounts involved,
+     * so journal order matches the order balances changed.
+     * @return the record's sequence number, to pass to awaitDurable
+     */
+    public long append(byte type, String accountNumber, String targetNumber, long amountCents) {
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            long sequence = lastSequence + 1;
+            encode(sequence, type, accountNumber, targetNumber, amountCents);
+            seal();
+            segmentFor(sequence).put(offsetOf(sequence), scratch);
+            lastSequence = sequence;
+            return sequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Append an account opening: its holder and opening balance, so replay can recreate it
+     * @return the sequence of the opening's last record, to pass to awaitDurable
+     */
+    public long appendOpening(String accountNumber, String accountHolder, long openingCents) {
+        byte[] holder = accountHolder.getBytes(StandardCharsets.UTF_8);
+        if (holder.length > MAX_HOLDER_BYTES) {
+            throw new InvalidTransactionException(
+                "Account holder name too long for the journal (max " + MAX_HOLDER_BYTES + " bytes)",
+                "JOURNAL"
+            );
+        }
+        int continuations = Math.max(0, (holder.length - 1) / MAX_ACCOUNT_BYTES);
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            long first = lastSequence + 1;
+            for (int part = 0; part <= continuations; part++) {
+                long sequence = first + part;
+                int from = part * MAX_ACCOUNT_BYTES;
+                int length = Math.min(MAX_ACCOUNT_BYTES, holder.length - from);
+                encode(sequence, part == 0 ? OPEN : HOLDER, accountNumber, null, part == 0 ? openingCents : 0);
+                Arrays.fill(scratch, 56, 56 + MAX_ACCOUNT_BYTES, (byte) 0);
+                System.arraycopy(holder, from, scratch, 56, length);
+                scratchBuffer.put(10, (byte) length);
+                scratchBuffer.put(11, part == 0 ? (byte) continuations : 0);
+                seal();
+                segmentFor(sequence).put(offsetOf(sequence), scratch);
+            }
+            lastSequence = first + continuations; // the whole group becomes visible at once
+            return lastSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Block until the given sequence is on disk according to the fsync policy.
+     * Call this after releasing account locks so waiting never blocks other postings.
+     */
+    public void awaitDurable(long sequence) {
+        if (sequence <= durableSequence || policy == FsyncPolicy.OS_DEFAULT) {
+            return;
+        }
+        if (policy == FsyncPolicy.EVERY_RECORD) {
+            forceRange(sequence, sequence);
+            return;
+        }
+        flushLock.lock();
+        try {
+            flushRequested.signal();
+            while (durableSequence < sequence && !closed) {
+                durableAdvanced.awaitUninterruptibly();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Re-apply every record with sequence >= fromSequence. Accounts opened in that
+     * range are recreated and registered; every other account a record names must
+     * already be registered (e.g. restored from the snapshot taken at fromSequence - 1).
+     * @return number of records applied, each opening counting once
+     * @throws IllegalStateException when a record names an account that was never opened,
+     *         or opens one that is already registered
+     */
+    public long replay(AccountRegistry registry, long fromSequence) {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        if (Math.max(1, fromSequence) < firstSequence() && fromSequence <= lastSequence) {
+            throw new IllegalStateException("Journal no longer holds sequence " + fromSequence);
+        }
+        long applied = 0;
+        byte[] record = new byte[RECORD_SIZE];
+        ByteBuffer view = ByteBuffer.wrap(record);
+        for (long sequence = Math.max(1, fromSequence); sequence <= lastSequence; sequence++) {
+            segmentAt(segmentIndex(sequence)).get(offsetOf(sequence), record);
+            String accountNumber = readAccount(view, 9, 24);
+            long amountCents = view.getLong(16);
+            byte type = view.get(8);
+            if (type == OPEN) {
+                long opening = sequence;
+                int continuations = record[11] & 0xFF;
+                byte[] holder = new byte[(continuations + 1) * MAX_ACCOUNT_BYTES];
+                int holderLength = 0;
+                for (int part = 0; ; part++) {
+                    System.arraycopy(record, 56, holder, holderLength, record[10]);
+                    holderLength += record[10];
+                    if (part == continuations) {
+                        break;
+                    }
+                    if (++sequence > lastSequence) {
+                        throw corrupt(opening, "opening of " + accountNumber + " is incomplete");
+                    }
+                    segmentAt(segmentIndex(sequence)).get(offsetOf(sequence), record);
+                    if (view.get(8) != HOLDER || !readAccount(view, 9, 24).equals(accountNumber)) {
+                        throw corrupt(sequence, "expected the rest of the opening of " + accountNumber);
+                    }
+                }
+                if (registry.find(accountNumber) != null) {
+                    throw corrupt(opening, "opens account " + accountNumber + ", which is already registered");
+                }
+                registry.register(BankAccount.restore(accountNumber,
+                    new String(holder, 0, holderLength, StandardCharsets.UTF_8), amountCents));
+                applied++;
+                continue;
+            }
+            BankAccount account = registered(registry, accountNumber, sequence);
+            switch (type) {
+                case DEPOSIT:
+                    account.applyJournalDelta(amountCents);
+                    break;
+                case WITHDRAWAL:
+                    account.applyJournalDelta(-amountCents);
+                    break;
+                case TRANSFER:
+                    BankAccount target = registered(registry, readAccount(view, 10, 56), sequence);
+                    account.applyJournalDelta(-amountCents);
+                    target.applyJournalDelta(amountCents);
+                    break;
+                default:
+                    throw corrupt(sequence, "unexpected record type " + type);
+            }
+            applied++;
+        }
+        return applied;
+    }
+
+    private static BankAccount registered(AccountRegistry registry, String accountNumber, long sequence) {
+        BankAccount account = registry.find(accountNumber);
+        if (account == null) {
+            throw corrupt(sequence, "names account " + accountNumber + ", which was never opened");
+        }
+        return account;
+    }
+
+    private static IllegalStateException corrupt(long sequence, String problem) {
+        return new IllegalStateException("Corrupt journal: record " + sequence + " " + problem);
+    }
+
+    /**
+     * Delete segments whose records all precede the given sequence (e.g. a snapshot cut).
+     * The segment currently being appended to is always kept.
+     * @return number of segment files deleted
+     */
+    public int deleteBefore(long sequence) throws IOException {
+        int deleted = 0;
+        synchronized (segments) {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            int activeSegment = segmentIndex(Math.max(1, lastSequence));
+            while (firstSegment < activeSegment && (long) (firstSegment + 1) * recordsPerSegment < sequence) {
+                segments.set(firstSegment, null);
+                Files.deleteIfExists(segmentPath(firstSegment));
+                firstSegment++;
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Sequence number of the oldest record still held
+     */
+    public long firstSequence() {
+        return (long) firstSegment * recordsPerSegment + 1;
+    }
+
+    /**
+     * Sequence number of the newest record (0 when empty)
+     */
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    public FsyncPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Force every record, release the segments and detach the journal from the
+     * accounts; replay, append and deleteBefore are rejected afterwards
+     */
+    @Override
+    public void close() {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            forceRange(durableSequence + 1, lastSequence);
+            durableSequence = lastSequence;
+            closed = true;
+        } finally {
+            appendLock.unlock();
+        }
+        flushLock.lock();
+        try {
+            durableAdvanced.signalAll();
+            flushRequested.signal();
+        } finally {
+            flushLock.unlock();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Drop the mappings so they can be unmapped, and stop accounts posting to a closed journal
+        synchronized (segments) {
+            segments.clear();
+        }
+        BankAccount.detachJournal(this);
+    }
+
+    // Group commit: one force covers every record appended since the previous one
+    private void runFlusher() {
+        while (!closed) {
+            flushLock.lock();
+            try {
+                if (closed) {
+                    return; // checked under flushLock so close's signal cannot be missed
+                }
+                if (lastSequence == durableSequence) {
+                    flushRequested.awaitUninterruptibly();
+                } else {
+                    flushRequested.awaitNanos(GROUP_COMMIT_WINDOW_NANOS);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                flushLock.unlock();
+            }
+
+            long target = lastSequence;
+            if (target > durableSequence && !closed) {
+                forceRange(durableSequence + 1, target);
+                flushLock.lock();
+                try {
+                    durableSequence = target;
+                    durableAdvanced.signalAll();
+                } finally {
+                    flushLock.unlock();
+                }
+            }
+        }
+    }
+
+    private void forceRange(long fromSequence, long toSequence) {
+        if (fromSequence > toSequence) {
+            return;
+        }
+        for (int index = segmentIndex(fromSequence); index <= segmentIndex(toSequence); index++) {
+            long first = Math.max(fromSequence, (long) index * recordsPerSegment + 1);
+            long last = Math.min(toSequence, (long) (index + 1) * recordsPerSegment);
+            segmentAt(index).force(offsetOf(first), (int) (last - first + 1) * RECORD_SIZE);
+        }
+    }
+
+    private void encode(long sequence, byte type, String accountNumber, String targetNumber, long amountCents) {
+        scratchBuffer.putLong(0, sequence);
+        scratchBuffer.put(8, type);
+        scratchBuffer.put(9, writeAccount(accountNumber, 24));
+        scratchBuffer.put(10, targetNumber == null ? 0 : writeAccount(targetNumber, 56));
+        scratchBuffer.put(11, (byte) 0);
+        scratchBuffer.putInt(12, 0);
+        scratchBuffer.putLong(16, amountCents);
+        scratchBuffer.putLong(88, System.currentTimeMillis());
+    }
+
+    // Fill in the checksum once every other byte of the scratch record is final
+    private void seal() {
+        crc.reset();
+        crc.update(scratch, 0, 12);
+        crc.update(scratch, 16, RECORD_SIZE - 16);
+        scratchBuffer.putInt(12, (int) crc.getValue());
+    }
+
+    // Account numbers are ASCII in practice; anything else goes through UTF-8
+    private byte writeAccount(String accountNumber, int offset) {
+        byte[] encoded = null;
+        int length = accountNumber.length();
+        for (int i = 0; i < length; i++) {
+            if (accountNumber.charAt(i) > 0x7F) {
+                encoded = accountNumber.getBytes(StandardCharsets.UTF_8);
+                length = encoded.length;
+                break;
+            }
+        }
+        if (length > MAX_ACCOUNT_BYTES) {
+            throw new InvalidTransactionException(
+                "Account number too long for the journal (max " + MAX_ACCOUNT_BYTES + " bytes)",
+                "JOURNAL"
+            );
+        }
+        for (int i = 0; i < MAX_ACCOUNT_BYTES; i++) {
+            byte value = 0;
+            if (i < length) {
+                value = encoded != null ? encoded[i] : (byte) accountNumber.charAt(i);
+            }
+            scratch[offset + i] = value;
+        }
+        return (byte) length;
+    }
+
+    private static String readAccount(ByteBuffer record, int lengthOffset, int offset) {
+        return new String(record.array(), offset, record.get(lengthOffset), StandardCharsets.UTF_8);
+    }
+
+    private boolean isValidRecord(MappedByteBuffer segment, long sequence, byte[] record) {
+        segment.get(offsetOf(sequence), record);
+        ByteBuffer view = ByteBuffer.wrap(record);
+        if (view.getLong(0) != sequence) {
+            return false;
+        }
+        CRC32C check = new CRC32C();
+        check.update(record, 0, 12);
+        check.update(record, 16, RECORD_SIZE - 16);
+        return view.getInt(12) == (int) check.getValue();
+    }
+
+    private void mapExistingSegments() throws IOException {
+        int oldest = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "journal-*.seg")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                int index = Integer.parseInt(name.substring("journal-".length(), name.length() - ".seg".length()));
+                oldest = oldest < 0 ? index : Math.min(oldest, index);
+            }
+        }
+        if (oldest < 0) {
+            return;
+        }
+        firstSegment = oldest;
+        for (int index = 0; index < oldest; index++) {
+            segments.add(null);
+        }
+        for (int index = oldest; Files.exists(segmentPath(index)); index++) {
+            segments.add(map(index));
+        }
+    }
+
+    // The tail is the last record whose sequence and checksum are intact (a torn write ends the log),
+    // less any opening whose HOLDER records did not all make it
+    private long scanForLastSequence() {
+        byte[] record = new byte[RECORD_SIZE];
+        long sequence = (long) firstSegment * recordsPerSegment;
+        long complete = sequence;
+        long groupEnd = 0;
+        while (segmentIndex(sequence + 1) < segments.size()
+                && isValidRecord(segments.get(segmentIndex(sequence + 1)), sequence + 1, record)) {
+            sequence++;
+            if (record[8] == OPEN) {
+                groupEnd = sequence + (record[11] & 0xFF);
+            }
+            if (sequence >= groupEnd) {
+                complete = sequence;
+            }
+        }
+        return complete;
+    }
+
+    // Mapped pages reach disk in any order, so records past a torn one may have survived a crash.
+    // Zero the rest of the tail segment and delete later ones, so a later scan cannot take such
+    // a stale record for the successor of one written after restart.
+    private void truncateAfter(long sequence) throws IOException {
+        int tail = segmentIndex(sequence + 1);
+        while (segments.size() > tail + 1) {
+            int index = segments.size() - 1;
+            segments.remove(index);
+            Files.deleteIfExists(segmentPath(index));
+        }
+        if (tail < segments.size()) {
+            // Only records that still carry a sequence number are rewritten, so a mostly empty
+            // segment is read but not dirtied
+            MappedByteBuffer segment = segments.get(tail);
+            byte[] zeros = new byte[RECORD_SIZE];
+            int from = offsetOf(sequence + 1);
+            int end = recordsPerSegment * RECORD_SIZE;
+            int dirtyEnd = from;
+            for (int at = from; at < end; at += RECORD_SIZE) {
+                if (segment.getLong(at) != 0) {
+                    segment.put(at, zeros);
+                    dirtyEnd = at + RECORD_SIZE;
+                }
+            }
+            if (dirtyEnd > from) {
+                segment.force(from, dirtyEnd - from);
+            }
+        }
+    }
+
+    private MappedByteBuffer segmentAt(int index) {
+        synchronized (segments) {
+            return segments.get(index);
+        }
+    }
+
+    private MappedByteBuffer segmentFor(long sequence) {
+        int index = segmentIndex(sequence);
+        synchronized (segments) {
+            while (segments.size() <= index) {
+                try {
+                    segments.add(map(segments.size()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot create journal segment", e);
+                }
+            }
+            return segments.get(index);
+        }
+    }
+
+    private MappedByteBuffer map(int index) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(index),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+        }
+    }
+
+    private Path segmentPath(int index) {
+        return directory.resolve(String.format("journal-%06d.seg", index));
+    }
+
+    private int segmentIndex(long sequence) {
+        return (int) ((sequence - 1) / recordsPerSegment);
+    }
+
+    private int offsetOf(long sequence) {
+        return (int) ((sequence - 1) % recordsPerSegment) * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,37 @@
+package Assessment3_DennisMusyimi;
+
+/**
+ * One line of a posting batch: a deposit, withdrawal or transfer
+ */
+final class Txn {
+    enum Type { DEPOSIT, WITHDRAWAL, TRANSFER }
+
+    private final Type type;
+    private final BankAccount account;
+    private final BankAccount target;
+    private final double amount;
+
+    private Txn(Type type, BankAccount account, BankAccount target, double amount) {
+        this.type = type;
+        this.account = account;
+        this.target = target;
+        this.amount = amount;
+    }
+
+    static Txn deposit(BankAccount account, double amount) {
+        return new Txn(Type.DEPOSIT, account, null, amount);
+    }
+
+    static Txn withdrawal(BankAccount account, double amount) {
+        return new Txn(Type.WITHDRAWAL, account, null, amount);
+    }
+
+    static Txn transfer(BankAccount from, BankAccount to, double amount) {
+        return new Txn(Type.TRANSFER, from, to, amount);
+    }
+
+    Type getType() { return type; }
+    BankAccount getAccount() { return account; }
+    BankAccount getTarget() { return target; }
+    double getAmount() { return amount; }
+}
@@ -0,0 +1,24 @@
+package Assessment3_DennisMusyimi;
+
+/**
+ * Outcome of a posting that is reported as a value instead of an exception.
+ * Codes are stable so a batch result can be stored as one byte per item.
+ */
+enum TxnStatus {
+    OK,
+    INVALID_AMOUNT,
+    INSUFFICIENT_FUNDS,
+    SAME_ACCOUNT,
+    ACCOUNT_NOT_FOUND,
+    LIMIT_EXCEEDED;
+
+    private static final TxnStatus[] BY_CODE = values();
+
+    byte code() {
+        return (byte) ordinal();
+    }
+
+    static TxnStatus fromCode(byte code) {
+        return BY_CODE[code];
+    }
+}
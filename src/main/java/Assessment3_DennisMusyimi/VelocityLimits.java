@@ -0,0 +1,44 @@
+package Assessment3_DennisMusyimi;
+
+/**
+ * Rolling per-account limits, on top of the per-transaction MAX_TRANSACTION.
+ * A limit of 0 means unlimited. Instances are immutable and can be shared.
+ */
+final class VelocityLimits {
+    static final VelocityLimits NONE = new VelocityLimits(0, 0);
+
+    private final long dailyWithdrawalCents;
+    private final int transfersPerMinute;
+
+    /**
+     * @param dailyWithdrawalLimit most that may be withdrawn in any rolling 24 hours
+     * @param transfersPerMinute   most outgoing transfers in any rolling minute
+     */
+    VelocityLimits(double dailyWithdrawalLimit, int transfersPerMinute) {
+        if (!Double.isFinite(dailyWithdrawalLimit) || dailyWithdrawalLimit < 0 || transfersPerMinute < 0) {
+            throw new InvalidTransactionException("Velocity limits cannot be negative", "LIMITS");
+        }
+        this.dailyWithdrawalCents = Money.toCents(dailyWithdrawalLimit);
+        this.transfersPerMinute = transfersPerMinute;
+    }
+
+    boolean isLimitingWithdrawals() {
+        return dailyWithdrawalCents > 0;
+    }
+
+    boolean isLimitingTransfers() {
+        return transfersPerMinute > 0;
+    }
+
+    public long getDailyWithdrawalCents() {
+        return dailyWithdrawalCents;
+    }
+
+    public double getDailyWithdrawalLimit() {
+        return Money.toDouble(dailyWithdrawalCents);
+    }
+
+    public int getTransfersPerMinute() {
+        return transfersPerMinute;
+    }
+}
@@ -0,0 +1,125 @@
+package Random_Assignments.BankAccount_Static;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AccountNumberAllocator - hands out unique account numbers to many threads
+ * 
+ * Threads take numbers from a private block claimed from one shared counter,
+ * so the shared counter is touched once per block instead of once per account.
+ * Numbers are unique but only ordered within a thread's block; numbers left in
+ * a block when a thread ends are never used.
+ * 
+ * When backed by a file, the allocator records a high-water mark ahead of the
+ * numbers handed out. After a restart it continues above that mark, so no
+ * number is ever issued twice (numbers reserved but not used are skipped).
+ */
+public class AccountNumberAllocator {
+    private static final int DEFAULT_BLOCK_SIZE = 256;
+    private static final long RESERVE_AHEAD = 1 << 16;  // numbers covered by each high-water-mark write
+    
+    private final AtomicLong nextBlockStart;
+    private final int blockSize;
+    private final Path highWaterMarkFile;  // null when numbers are not persisted
+    private volatile long reservedUpTo;    // every number below this is covered by the file
+    private final ThreadLocal<long[]> blocks = ThreadLocal.withInitial(() -> new long[2]);  // {next, end}
+    
+    // Constructor for an in-memory allocator (numbers restart at firstNumber with the JVM)
+    public AccountNumberAllocator(int firstNumber) {
+        this(firstNumber, DEFAULT_BLOCK_SIZE, null);
+    }
+    
+    private AccountNumberAllocator(long firstNumber, int blockSize, Path highWaterMarkFile) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.nextBlockStart = new AtomicLong(firstNumber);
+        this.blockSize = blockSize;
+        this.highWaterMarkFile = highWaterMarkFile;
+        this.reservedUpTo = highWaterMarkFile != null ? firstNumber : Long.MAX_VALUE;
+    }
+    
+    /**
+     * Open an allocator that persists its high-water mark in the given file
+     * @param highWaterMarkFile file holding the mark (created when missing)
+     * @param firstNumber number to start from when the file does not exist yet
+     * @return allocator continuing above any number issued before
+     */
+    public static AccountNumberAllocator open(Path highWaterMarkFile, int firstNumber) throws IOException {
+        return open(highWaterMarkFile, firstNumber, DEFAULT_BLOCK_SIZE);
+    }
+    
+    /**
+     * Open a persisted allocator with a custom per-thread block size
+     */
+    public static AccountNumberAllocator open(Path highWaterMarkFile, int firstNumber, int blockSize) throws IOException {
+        long start = firstNumber;
+        if (Files.exists(highWaterMarkFile)) {
+            String stored = new String(Files.readAllBytes(highWaterMarkFile), StandardCharsets.US_ASCII).trim();
+            try {
+                start = Math.max(start, Long.parseLong(stored));
+            } catch (NumberFormatException e) {
+                throw new IOException("Corrupt account number high-water mark in " + highWaterMarkFile + ": " + stored);
+            }
+        }
+        return new AccountNumberAllocator(start, blockSize, highWaterMarkFile);
+    }
+    
+    /**
+     * Get the next account number
+     * @return a number no other call (or earlier run, when persisted) has returned
+     */
+    public int next() {
+        long[] block = blocks.get();
+        if (block[0] == block[1]) {
+            long start = nextBlockStart.getAndAdd(blockSize);
+            long end = start + blockSize;
+            if (end - 1 > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Account numbers exhausted");
+            }
+            if (end > reservedUpTo) {
+                reserve(end);
+            }
+            block[0] = start;
+            block[1] = end;
+        }
+        return (int) block[0]++;
+    }
+    
+    /**
+     * Get the first number the allocator has not handed to any thread yet
+     * @return high-water mark of claimed blocks
+     */
+    public long getHighWaterMark() {
+        return nextBlockStart.get();
+    }
+    
+    // Persist a mark at or above end before any number below it is used; rare, so a lock is fine
+    private synchronized void reserve(long end) {
+        if (end <= reservedUpTo) {
+            return;  // another thread already covered this block
+        }
+        long mark = Math.max(end, nextBlockStart.get()) + RESERVE_AHEAD;
+        try {
+            Path temp = highWaterMarkFile.resolveSibling(highWaterMarkFile.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.wrap(Long.toString(mark).getBytes(StandardCharsets.US_ASCII)));
+                channel.force(true);
+            }
+            Files.move(temp, highWaterMarkFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot persist account number high-water mark", e);
+        }
+        reservedUpTo = mark;
+    }
+}
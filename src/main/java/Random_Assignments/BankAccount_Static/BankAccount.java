@@ -1,5 +1,7 @@
 package Random_Assignments.BankAccount_Static;
 
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * BankAccount class demonstrating static and instance members
  * Static members are shared across all instances
@@ -7,9 +9,10 @@ package Random_Assignments.BankAccount_Static;
  */
 public class BankAccount {
     // Static Members (Class-level - shared by all instances)
-    private static int totalAccounts = 0;
+    private static final LongAdder totalAccounts = new LongAdder();  // striped counter: no contention on creation
+    private static volatile AccountNumberAllocator accountNumbers = new AccountNumberAllocator(1001);
     private static final String BANK_NAME = "First Global Bank";
-    private static double interestRate = 0.03;  // 3% default interest rate
+    private static volatile double interestRate = 0.03;  // 3% default interest rate (volatile: read by accrual worker threads)
     
     // Instance Members (Object-level - unique to each account)
     private int accountNumber;
@@ -20,8 +23,8 @@ public class BankAccount {
     public BankAccount(String accountHolder, double initialBalance) {
         this.accountHolder = accountHolder;
         this.balance = initialBalance;
-        totalAccounts++;  // Increment static counter
-        this.accountNumber = 1000 + totalAccounts;  // Generate unique account number
+        this.accountNumber = accountNumbers.next();  // Generate unique account number
+        totalAccounts.increment();  // Increment static counter
     }
     
     // Static Methods (operate on class-level data)
@@ -31,7 +34,18 @@ public class BankAccount {
      * @return total number of accounts
      */
     public static int getTotalAccounts() {
-        return totalAccounts;
+        return totalAccounts.intValue();
+    }
+    
+    /**
+     * Replace the source of account numbers, e.g. with a persisted allocator
+     * @param allocator allocator used by accounts created from now on
+     */
+    public static void setAccountNumberAllocator(AccountNumberAllocator allocator) {
+        if (allocator == null) {
+            throw new IllegalArgumentException("Allocator cannot be null");
+        }
+        accountNumbers = allocator;
     }
     
     /**
@@ -106,13 +120,24 @@ public class BankAccount {
      * Uses the static interestRate
      */
     public void applyInterest() {
-        double interest = balance * interestRate;
-        balance += interest;
+        double rate = interestRate;  // read once so the amount and the message agree
+        double interest = accrueInterest(rate);
         System.out.println("Interest applied: $" + String.format("%.2f", interest) + 
-                         " at " + (interestRate * 100) + "% rate");
+                         " at " + (rate * 100) + "% rate");
         System.out.println("New balance: $" + String.format("%.2f", balance));
     }
     
+    /**
+     * Apply interest at the given rate without printing (used by InterestAccrualEngine)
+     * @param rate interest rate to apply
+     * @return interest added to the balance
+     */
+    double accrueInterest(double rate) {
+        double interest = balance * rate;
+        balance += interest;
+        return interest;
+    }
+    
     // Instance Getters
     public int getAccountNumber() {
         return accountNumber;
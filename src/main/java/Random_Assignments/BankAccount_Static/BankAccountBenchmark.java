@@ -0,0 +1,140 @@
+package Random_Assignments.BankAccount_Static;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * BankAccountBenchmark - throughput measurements for the static BankAccount code
+ * Sizes can be tuned with system properties, e.g. -Dbench.accounts=1000000
+ */
+public class BankAccountBenchmark {
+    private static final int ACCOUNTS = Integer.getInteger("bench.accounts", 2_000_000);
+    private static final double INITIAL_BALANCE = 1000.00;
+    
+    public static void main(String[] args) throws Exception {
+        System.out.println("===================================================");
+        System.out.println("     BANK ACCOUNT (STATIC) BENCHMARK");
+        System.out.println("===================================================\n");
+        
+        benchmarkInterestAccrual();
+        benchmarkAccountCreation();
+    }
+    
+    private static void benchmarkInterestAccrual() throws InterruptedException {
+        System.out.println("1. MONTH-END INTEREST ACCRUAL (" + ACCOUNTS + " accounts)");
+        System.out.println("---------------------------------------------------");
+        
+        BankAccount[] accounts = createAccounts(ACCOUNTS);
+        BankAccount.setInterestRate(0.01);
+        
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int round = 0; round < 2; round++) {  // first round is JIT warm-up
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                InterestAccrualEngine.AccrualResult result = new InterestAccrualEngine(pool, 8192).accrue(accounts);
+                pool.shutdown();
+                if (round == 1) {
+                    System.out.printf("%2d thread(s): %,14.0f accounts/s%n", threads, result.getAccountsPerSecond());
+                }
+            }
+        }
+        
+        // Change the rate while a run is in progress: every account must still get one rate
+        accounts = createAccounts(ACCOUNTS);
+        BankAccount.setInterestRate(0.02);
+        Thread rateChanger = new Thread(() -> BankAccount.setInterestRate(0.05));
+        InterestAccrualEngine engine = new InterestAccrualEngine();
+        rateChanger.start();
+        InterestAccrualEngine.AccrualResult result = engine.accrue(accounts);
+        rateChanger.join();
+        
+        double expected = INITIAL_BALANCE + INITIAL_BALANCE * result.getRate();  // same arithmetic as accrueInterest
+        int inconsistent = 0;
+        for (BankAccount account : accounts) {
+            if (account.getBalance() != expected) {
+                inconsistent++;
+            }
+        }
+        System.out.println(result);
+        System.out.println("Accounts accrued at a different rate after a mid-run change: " + inconsistent);
+        System.out.println("---------------------------------------------------\n");
+    }
+    
+    private static void benchmarkAccountCreation() throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int perThread = Integer.getInteger("bench.create", 1_000_000);
+        System.out.println("2. CONCURRENT ACCOUNT CREATION (" + threads + " threads x " + perThread + " accounts)");
+        System.out.println("---------------------------------------------------");
+        
+        Path directory = Files.createTempDirectory("account-numbers");
+        Path markFile = directory.resolve("account-numbers.hwm");
+        try {
+            for (int round = 0; round < 2; round++) {
+                BankAccount.setAccountNumberAllocator(AccountNumberAllocator.open(markFile, 1001));
+                int before = BankAccount.getTotalAccounts();
+                int[][] numbers = new int[threads][perThread];
+                long elapsed = createConcurrently(threads, perThread, numbers);
+                
+                int created = BankAccount.getTotalAccounts() - before;
+                long[] all = new long[threads * perThread];
+                for (int t = 0; t < threads; t++) {
+                    for (int i = 0; i < perThread; i++) {
+                        all[t * perThread + i] = numbers[t][i];
+                    }
+                }
+                Arrays.sort(all);
+                int duplicates = 0;
+                for (int i = 1; i < all.length; i++) {
+                    if (all[i] == all[i - 1]) {
+                        duplicates++;
+                    }
+                }
+                // The second round reopens the mark file, as a restart would
+                System.out.printf("Run %d: %,14.0f accounts/s, numbers %d..%d, duplicates %d, count %s%n",
+                                 round + 1, all.length / (elapsed / 1e9), all[0], all[all.length - 1], duplicates,
+                                 created == all.length ? "exact" : "DRIFTED by " + (all.length - created));
+            }
+        } finally {
+            BankAccount.setAccountNumberAllocator(new AccountNumberAllocator(1001));
+            Files.deleteIfExists(markFile);
+            Files.deleteIfExists(directory);
+        }
+        System.out.println("---------------------------------------------------\n");
+    }
+    
+    private static long createConcurrently(int threads, int perThread, int[][] numbers) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int[] mine = numbers[t];
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < mine.length; i++) {
+                    mine[i] = new BankAccount("Holder", INITIAL_BALANCE).getAccountNumber();
+                }
+            });
+            workers[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - begin;
+    }
+    
+    private static BankAccount[] createAccounts(int count) {
+        BankAccount[] accounts = new BankAccount[count];
+        for (int i = 0; i < count; i++) {
+            accounts[i] = new BankAccount("Holder " + i, INITIAL_BALANCE);
+        }
+        return accounts;
+    }
+}
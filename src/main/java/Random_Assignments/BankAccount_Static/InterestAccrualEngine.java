@@ -0,0 +1,137 @@
+package Random_Assignments.BankAccount_Static;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * InterestAccrualEngine - month-end interest run over many accounts in parallel
+ * 
+ * The interest rate is read once when a run starts and that snapshot is used
+ * for every account, so calling BankAccount.setInterestRate() mid-run cannot
+ * give accounts different rates. Accounts are split into partitions that
+ * fork-join workers process independently.
+ */
+public class InterestAccrualEngine {
+    private static final int DEFAULT_PARTITION_SIZE = 8192;
+    
+    private final ForkJoinPool pool;
+    private final int partitionSize;
+    
+    // Constructor using the common fork-join pool
+    public InterestAccrualEngine() {
+        this(ForkJoinPool.commonPool(), DEFAULT_PARTITION_SIZE);
+    }
+    
+    // Constructor with an explicit pool and partition size
+    public InterestAccrualEngine(ForkJoinPool pool, int partitionSize) {
+        if (partitionSize < 1) {
+            throw new IllegalArgumentException("Partition size must be positive");
+        }
+        this.pool = pool;
+        this.partitionSize = partitionSize;
+    }
+    
+    /**
+     * Apply the current interest rate to every account.
+     * No account may be used by another thread while the run is in progress.
+     * @param accounts accounts to accrue
+     * @return summary of the run
+     */
+    public AccrualResult accrue(BankAccount[] accounts) {
+        double rate = BankAccount.getInterestRate();  // the single rate snapshot for this run
+        long start = System.nanoTime();
+        double totalInterest = pool.invoke(new AccrualTask(accounts, 0, accounts.length, rate, partitionSize));
+        long elapsed = System.nanoTime() - start;
+        return new AccrualResult(rate, accounts.length, totalInterest, elapsed);
+    }
+    
+    /**
+     * Apply the current interest rate to every account in the list
+     * @param accounts accounts to accrue
+     * @return summary of the run
+     */
+    public AccrualResult accrue(List<BankAccount> accounts) {
+        return accrue(accounts.toArray(new BankAccount[0]));
+    }
+    
+    /**
+     * Splits the range until it fits in one partition, then accrues it sequentially
+     */
+    private static class AccrualTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final BankAccount[] accounts;
+        private final int from;
+        private final int to;
+        private final double rate;
+        private final int partitionSize;
+        
+        AccrualTask(BankAccount[] accounts, int from, int to, double rate, int partitionSize) {
+            this.accounts = accounts;
+            this.from = from;
+            this.to = to;
+            this.rate = rate;
+            this.partitionSize = partitionSize;
+        }
+        
+        @Override
+        protected Double compute() {
+            if (to - from <= partitionSize) {
+                double interest = 0;
+                for (int i = from; i < to; i++) {
+                    interest += accounts[i].accrueInterest(rate);
+                }
+                return interest;
+            }
+            int middle = (from + to) >>> 1;
+            AccrualTask left = new AccrualTask(accounts, from, middle, rate, partitionSize);
+            left.fork();
+            double right = new AccrualTask(accounts, middle, to, rate, partitionSize).compute();
+            return left.join() + right;
+        }
+    }
+    
+    /**
+     * Outcome of one accrual run
+     */
+    public static class AccrualResult {
+        private final double rate;
+        private final int accounts;
+        private final double totalInterest;
+        private final long elapsedNanos;
+        
+        AccrualResult(double rate, int accounts, double totalInterest, long elapsedNanos) {
+            this.rate = rate;
+            this.accounts = accounts;
+            this.totalInterest = totalInterest;
+            this.elapsedNanos = elapsedNanos;
+        }
+        
+        public double getRate() {
+            return rate;
+        }
+        
+        public int getAccounts() {
+            return accounts;
+        }
+        
+        public double getTotalInterest() {
+            return totalInterest;
+        }
+        
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+        
+        public double getAccountsPerSecond() {
+            return elapsedNanos > 0 ? accounts / (elapsedNanos / 1e9) : 0;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("Accrued $%.2f on %,d accounts at %.2f%% in %.1f ms (%,.0f accounts/s)",
+                               totalInterest, accounts, rate * 100, elapsedNanos / 1e6, getAccountsPerSecond());
+        }
+    }
+}